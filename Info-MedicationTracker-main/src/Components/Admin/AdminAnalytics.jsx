@@ -10,6 +10,7 @@ export default function AdminAnalytics() {
     totalOrders: 0
   });
   const [loading, setLoading] = useState(true);
+  const [timeseries, setTimeseries] = useState(null);
 
   useEffect(() => {
     fetchStats();
@@ -19,8 +20,12 @@ export default function AdminAnalytics() {
 
   const fetchStats = async () => {
     try {
-      const response = await api.get("/admin/analytics");
+      const [response, seriesResponse] = await Promise.all([
+        api.get("/admin/analytics"),
+        api.get("/admin/analytics/timeseries", { params: { days: 30 } })
+      ]);
       setStats(response.data);
+      setTimeseries(seriesResponse.data);
     } catch (err) {
       console.error("Failed to fetch analytics");
     } finally {
@@ -64,6 +69,36 @@ export default function AdminAnalytics() {
           </div>
         </div>
       </div>
+
+      {timeseries && (
+        <div className="daily-section">
+          <h3>Last 30 Days</h3>
+          <table className="daily-table">
+            <thead>
+              <tr>
+                <th>Day</th>
+                <th>Signups</th>
+                <th>Doctors</th>
+                <th>Appointments</th>
+                <th>Orders</th>
+                <th>Revenue (₹)</th>
+              </tr>
+            </thead>
+            <tbody>
+              {timeseries.days.map((day, i) => ({ day, i })).reverse().map(({ day, i }) => (
+                <tr key={day}>
+                  <td>{day}</td>
+                  <td>{timeseries.series["signups"]?.[i] ?? 0}</td>
+                  <td>{timeseries.series["doctorRegistrations"]?.[i] ?? 0}</td>
+                  <td>{timeseries.series["appointments.booked"]?.[i] ?? 0}</td>
+                  <td>{timeseries.series["orders.placed"]?.[i] ?? 0}</td>
+                  <td>{((timeseries.series["orders.revenuePaise"]?.[i] ?? 0) / 100).toFixed(2)}</td>
+                </tr>
+              ))}
+            </tbody>
+          </table>
+        </div>
+      )}
     </div>
   );
 }
@@ -3,24 +3,55 @@ import api from "../../api";
 import "./AssignDoctor.css";
 
 export default function AssignDoctor() {
-  const [users, setUsers] = useState([]);
+  const [unassignedUsers, setUnassignedUsers] = useState([]);
+  const [assignedUsers, setAssignedUsers] = useState([]);
+  const [unassignedCursor, setUnassignedCursor] = useState(null);
+  const [assignedCursor, setAssignedCursor] = useState(null);
   const [doctors, setDoctors] = useState([]);
+  const [specializations, setSpecializations] = useState({});
+  const [specializationFilter, setSpecializationFilter] = useState("");
   const [selectedUser, setSelectedUser] = useState("");
   const [selectedDoctor, setSelectedDoctor] = useState("");
   const [message, setMessage] = useState("");
 
   useEffect(() => {
     fetchData();
-  }, []);
+  }, [specializationFilter]);
 
   const fetchData = async () => {
     try {
-      const [userRes, docRes] = await Promise.all([
-        api.get("/admin/users"),
-        api.get("/admin/doctors")
+      const [unassignedRes, assignedRes, docRes, specRes] = await Promise.all([
+        api.get("/admin/users/page", { params: { doctor: "unassigned" } }),
+        api.get("/admin/users/page", { params: { doctor: "assigned" } }),
+        api.get("/admin/doctors", { params: { specialization: specializationFilter || undefined } }),
+        api.get("/admin/doctors/specializations")
       ]);
-      setUsers(userRes.data);
+      setUnassignedUsers(unassignedRes.data.items);
+      setUnassignedCursor(unassignedRes.data.nextCursor);
+      setAssignedUsers(assignedRes.data.items);
+      setAssignedCursor(assignedRes.data.nextCursor);
       setDoctors(docRes.data);
+      setSpecializations(specRes.data);
+    } catch (err) {
+      console.error("Failed to fetch data");
+    }
+  };
+
+  const loadMoreUnassigned = async () => {
+    try {
+      const res = await api.get("/admin/users/page", { params: { doctor: "unassigned", cursor: unassignedCursor } });
+      setUnassignedUsers((prev) => [...prev, ...res.data.items]);
+      setUnassignedCursor(res.data.nextCursor);
+    } catch (err) {
+      console.error("Failed to fetch data");
+    }
+  };
+
+  const loadMoreAssigned = async () => {
+    try {
+      const res = await api.get("/admin/users/page", { params: { doctor: "assigned", cursor: assignedCursor } });
+      setAssignedUsers((prev) => [...prev, ...res.data.items]);
+      setAssignedCursor(res.data.nextCursor);
     } catch (err) {
       console.error("Failed to fetch data");
     }
@@ -40,7 +71,7 @@ export default function AssignDoctor() {
     }
   };
 
-  const currentUser = users.find(u => u.id === parseInt(selectedUser));
+  const currentUser = unassignedUsers.find(u => u.id === parseInt(selectedUser));
   const currentDoctor = doctors.find(d => d.doctorId === parseInt(selectedDoctor));
 
   return (
@@ -59,13 +90,26 @@ export default function AssignDoctor() {
               <label>Select Patient</label>
               <select value={selectedUser} onChange={(e) => setSelectedUser(e.target.value)} required>
                 <option value="">-- Choose Patient --</option>
-                {/* SHOW ALL USERS - REMOVED FILTER */}
-                {users.map(u => (
+                {/* Patients who already have a doctor must be unassigned first */}
+                {unassignedUsers.map(u => (
                   <option key={u.id} value={u.id}>
                     {u.username} {u.assignedDoctor ? `(Current: Dr. ${u.assignedDoctor})` : ""}
                   </option>
                 ))}
               </select>
+              {unassignedCursor && (
+                <button type="button" className="load-more-btn" onClick={loadMoreUnassigned}>Load more patients</button>
+              )}
+            </div>
+
+            <div className="input-group">
+              <label>Specialization</label>
+              <select value={specializationFilter} onChange={(e) => { setSpecializationFilter(e.target.value); setSelectedDoctor(""); }}>
+                <option value="">All specializations</option>
+                {Object.entries(specializations).map(([name, count]) => (
+                  <option key={name} value={name}>{name} ({count})</option>
+                ))}
+              </select>
             </div>
 
             <div className="input-group">
@@ -126,7 +170,7 @@ export default function AssignDoctor() {
                     </tr>
                 </thead>
                 <tbody>
-                    {users.filter(u => u.assignedDoctor).map(u => (
+                    {assignedUsers.map(u => (
                         <tr key={u.id}>
                             <td><strong>{u.username}</strong></td>
                             <td><span className="symptom-tag">{u.symptoms}</span></td>
@@ -142,6 +186,9 @@ export default function AssignDoctor() {
                 </tbody>
             </table>
         </div>
+        {assignedCursor && (
+          <button className="load-more-btn" onClick={loadMoreAssigned}>Load more assignments</button>
+        )}
       </div>
     </div>
   );
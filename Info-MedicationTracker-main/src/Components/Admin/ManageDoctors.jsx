@@ -8,19 +8,29 @@ export default function ManageDoctors() {
   const [doctors, setDoctors] = useState([]);
   const [loading, setLoading] = useState(true);
   const [selectedItem, setSelectedPatient] = useState(null); // For Modal
+  const [assignmentFilter, setAssignmentFilter] = useState("");
+  const [diseaseFilter, setDiseaseFilter] = useState("");
+  const [patientCursor, setPatientCursor] = useState(null);
 
   useEffect(() => {
     fetchData();
-  }, []);
+  }, [assignmentFilter, diseaseFilter]);
+
+  const patientParams = (cursor) => ({
+    doctor: assignmentFilter || undefined,
+    disease: diseaseFilter || undefined,
+    cursor: cursor || undefined
+  });
 
   const fetchData = async () => {
     setLoading(true);
     try {
       const [pRes, dRes] = await Promise.all([
-        api.get("/admin/users"),
+        api.get("/admin/users/page", { params: patientParams() }),
         api.get("/admin/doctors")
       ]);
-      setPatients(pRes.data);
+      setPatients(pRes.data.items);
+      setPatientCursor(pRes.data.nextCursor);
       setDoctors(dRes.data);
     } catch (err) {
       console.error("Failed to fetch records");
@@ -29,6 +39,16 @@ export default function ManageDoctors() {
     }
   };
 
+  const loadMorePatients = async () => {
+    try {
+      const res = await api.get("/admin/users/page", { params: patientParams(patientCursor) });
+      setPatients((prev) => [...prev, ...res.data.items]);
+      setPatientCursor(res.data.nextCursor);
+    } catch (err) {
+      console.error("Failed to fetch records");
+    }
+  };
+
   const viewPatientReports = async (patient) => {
       try {
           const res = await api.get(`/reports/user/${patient.id}`);
@@ -59,6 +79,22 @@ export default function ManageDoctors() {
         <button className={activeSubTab === "doctors" ? "active" : ""} onClick={() => setActiveSubTab("doctors")}>👨‍⚕️ Doctors</button>
       </div>
 
+      {activeSubTab === "patients" && (
+        <div className="sub-tabs">
+          <select value={assignmentFilter} onChange={(e) => setAssignmentFilter(e.target.value)}>
+            <option value="">All patients</option>
+            <option value="assigned">With a doctor</option>
+            <option value="unassigned">Without a doctor</option>
+          </select>
+          <input
+            type="text"
+            placeholder="Filter by known disease"
+            value={diseaseFilter}
+            onChange={(e) => setDiseaseFilter(e.target.value)}
+          />
+        </div>
+      )}
+
       <div className="records-content">
         {loading ? <p>Loading records...</p> : (
           <div className="records-grid">
@@ -93,6 +129,9 @@ export default function ManageDoctors() {
             )}
           </div>
         )}
+        {!loading && activeSubTab === "patients" && patientCursor && (
+          <button className="view-details-btn" onClick={loadMorePatients}>Load more patients</button>
+        )}
       </div>
 
       {/* DETAIL MODAL */}
@@ -5,17 +5,26 @@ import "./ManageOrders.css";
 export default function ManageOrders() {
   const [orders, setOrders] = useState([]);
   const [loading, setLoading] = useState(true);
+  const [statusFilter, setStatusFilter] = useState("");
+  const [firstPageCursor, setFirstPageCursor] = useState(null);
+  const [olderOrders, setOlderOrders] = useState([]);
+  const [olderCursor, setOlderCursor] = useState(null);
 
   useEffect(() => {
+    setOlderOrders([]);
     fetchOrders();
     const interval = setInterval(fetchOrders, 5000);
     return () => clearInterval(interval);
-  }, []);
+  }, [statusFilter]);
 
+  const params = (cursor) => ({ status: statusFilter || undefined, cursor: cursor || undefined });
+
+  // Polling only refreshes the newest page; pages loaded with "Load older" are kept as they are
   const fetchOrders = async () => {
     try {
-      const response = await api.get("/pharmacy/admin/all-orders");
-      setOrders(response.data);
+      const response = await api.get("/pharmacy/admin/orders", { params: params() });
+      setOrders(response.data.items);
+      setFirstPageCursor(response.data.nextCursor);
     } catch (err) {
       console.error("Failed to fetch orders");
     } finally {
@@ -23,6 +32,20 @@ export default function ManageOrders() {
     }
   };
 
+  const nextCursor = olderOrders.length > 0 ? olderCursor : firstPageCursor;
+
+  const loadOlder = async () => {
+    try {
+      const response = await api.get("/pharmacy/admin/orders", { params: params(nextCursor) });
+      setOlderOrders((prev) => [...prev, ...response.data.items]);
+      setOlderCursor(response.data.nextCursor);
+    } catch (err) {
+      console.error("Failed to fetch orders");
+    }
+  };
+
+  const visibleOrders = [...orders, ...olderOrders.filter((o) => !orders.some((n) => n.id === o.id))];
+
   const updateStatus = async (id, newStatus) => {
       if (!window.confirm(`Are you sure you want to ${newStatus.toLowerCase()} this order?`)) return;
       try {
@@ -33,9 +56,35 @@ export default function ManageOrders() {
       }
   };
 
+  const NEXT_STATUS = { PENDING: "CONFIRMED", CONFIRMED: "DISPATCHED", DISPATCHED: "DELIVERED" };
+
+  // Moves every listed order one step forward in a single request
+  const advanceAll = async () => {
+    const changes = visibleOrders
+      .filter((order) => NEXT_STATUS[order.status])
+      .map((order) => ({ orderId: order.id, status: NEXT_STATUS[order.status] }));
+    if (changes.length === 0 || !window.confirm(`Advance ${changes.length} orders to their next status?`)) return;
+    try {
+      const response = await api.post("/pharmacy/admin/orders/status", changes);
+      const rejected = Object.keys(response.data.rejected || {}).length;
+      if (rejected > 0) alert(`${rejected} orders could not be updated`);
+      setOlderOrders([]);
+      fetchOrders();
+    } catch (err) {
+      alert("Failed to update status");
+    }
+  };
+
   return (
     <div className="manage-container">
       <div className="table-card">
+        <select value={statusFilter} onChange={(e) => setStatusFilter(e.target.value)}>
+          <option value="">All statuses</option>
+          {["PENDING", "CONFIRMED", "DISPATCHED", "DELIVERED", "CANCELLED"].map((s) => (
+            <option key={s} value={s}>{s}</option>
+          ))}
+        </select>
+        <button className="primary-btn" onClick={advanceAll}>Advance all listed</button>
         {loading ? <p>Loading...</p> : (
           <table>
             <thead>
@@ -49,7 +98,7 @@ export default function ManageOrders() {
               </tr>
             </thead>
             <tbody>
-              {orders.map((order) => (
+              {visibleOrders.map((order) => (
                 <tr key={order.id}>
                   <td>#{order.id}</td>
                   <td>
@@ -63,9 +112,13 @@ export default function ManageOrders() {
                     </span>
                   </td>
                   <td>
-                      {/* ONLY CANCEL BUTTON FOR ADMIN MODERATION */}
-                      {order.status !== 'CANCELLED' && order.status !== 'DELIVERED' ? (
-                          <button className="cancel-btn" onClick={() => updateStatus(order.id, 'CANCELLED')}>Cancel Order</button>
+                      {NEXT_STATUS[order.status] ? (
+                          <>
+                            <button className="primary-btn" onClick={() => updateStatus(order.id, NEXT_STATUS[order.status])}>
+                              Mark {NEXT_STATUS[order.status].toLowerCase()}
+                            </button>
+                            <button className="cancel-btn" onClick={() => updateStatus(order.id, 'CANCELLED')}>Cancel Order</button>
+                          </>
                       ) : (
                           <span className="no-action">-</span>
                       )}
@@ -75,6 +128,7 @@ export default function ManageOrders() {
             </tbody>
           </table>
         )}
+        {nextCursor && <button className="primary-btn" onClick={loadOlder}>Load older orders</button>}
       </div>
     </div>
   );
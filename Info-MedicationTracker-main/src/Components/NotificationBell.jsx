@@ -9,8 +9,31 @@ export default function NotificationBell() {
 
   useEffect(() => {
     fetchNotifications();
-    const interval = setInterval(fetchNotifications, 5000);
-    return () => clearInterval(interval);
+
+    // Server pushes new notifications and unread-count changes; fall back to polling if the stream fails
+    const token = sessionStorage.getItem("token");
+    let interval = null;
+    const source = new EventSource(
+      `${api.defaults.baseURL}/notifications/stream?access_token=${encodeURIComponent(token)}`
+    );
+    // Pushed notifications carry the stream's eventId; the stored id arrives with the next fetch
+    source.addEventListener("notification", (e) => {
+      const notification = JSON.parse(e.data);
+      setNotifications((prev) => [notification, ...prev]);
+    });
+    source.addEventListener("unread-count", (e) => {
+      setUnreadCount(JSON.parse(e.data).count);
+    });
+    source.onerror = () => {
+      if (source.readyState === EventSource.CLOSED && !interval) {
+        interval = setInterval(fetchNotifications, 30000);
+      }
+    };
+
+    return () => {
+      source.close();
+      if (interval) clearInterval(interval);
+    };
   }, []);
 
   const fetchNotifications = async () => {
@@ -55,7 +78,7 @@ export default function NotificationBell() {
               <p className="empty-notif">No notifications yet.</p>
             ) : (
               notifications.map((n) => (
-                <div key={n.id} className={`notif-item ${!n.read ? 'unread' : ''}`}>
+                <div key={n.id ?? `event-${n.eventId}`} className={`notif-item ${!n.read ? 'unread' : ''}`}>
                   <p>{n.message}</p>
                   <span className="notif-time">{new Date(n.timestamp).toLocaleString()}</span>
                 </div>
@@ -21,14 +21,23 @@ export default function Medication() {
     }
   };
 
+  // Sends the explicit new state, so a repeated tap can't flip it back
   const handleToggle = async (id) => {
+    const med = medications.find(m => m.id === id);
     try {
-      const response = await api.put(`/medication/${id}/toggle`);
-      setMedications(medications.map(med => 
-        med.id === id ? { ...med, taken: response.data.taken } : med
+      const response = await api.put("/medication/status", [
+        { id, taken: !med.taken, version: med.version }
+      ]);
+      const updated = new Map(response.data.map(t => [t.id, t]));
+      setMedications(medications.map(m => 
+        updated.has(m.id) ? { ...m, taken: updated.get(m.id).taken, version: updated.get(m.id).version } : m
       ));
     } catch (err) {
-      alert("Failed to update status");
+      if (err.response?.status === 409) {
+        fetchMedications();
+      } else {
+        alert("Failed to update status");
+      }
     }
   };
 
@@ -7,6 +7,10 @@ export default function Pharmacy({ selectedMeds, clearSelection }) {
   const [address, setAddress] = useState("");
   const [loading, setLoading] = useState(false);
   const [orderPlaced, setOrderDate] = useState(null);
+  // One key per checkout: if a retry reaches the server twice, it returns the same order
+  const [orderKey] = useState(() =>
+    window.crypto?.randomUUID ? window.crypto.randomUUID() : `${Date.now()}-${Math.random().toString(36).slice(2)}`
+  );
 
   useEffect(() => {
     if (selectedMeds.length > 0) {
@@ -33,7 +37,7 @@ export default function Pharmacy({ selectedMeds, clearSelection }) {
         medicines: selectedMeds,
         address: address,
         total: total
-      });
+      }, { headers: { "Idempotency-Key": orderKey } });
       setOrderDate(response.data);
     } catch (err) {
       alert("Failed to place order");
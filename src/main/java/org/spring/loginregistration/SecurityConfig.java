@@ -1,5 +1,6 @@
 package org.spring.loginregistration;
 
+import jakarta.servlet.DispatcherType;
 import org.spring.loginregistration.security.JwtAuthFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -40,6 +41,8 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .headers(headers -> headers.frameOptions(HeadersConfigurer.FrameOptionsConfig::disable))
                 .authorizeHttpRequests(auth -> auth
+                        // Async dispatches (SSE completion) belong to a request that was already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // Permit access to registration, login, error pages, H2 console, files, AI API, password reset
                         .requestMatchers(
                                 "/register", "/login", "/error", "/h2-console/**",
@@ -0,0 +1,146 @@
+package org.spring.loginregistration.cache;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small thread-safe cache where every entry carries its own expiry time.
+ * When the cache is full, expired entries are purged first and, if that is
+ * not enough, arbitrary entries are dropped until it is back under 90% of
+ * capacity. Hit, miss and eviction counts are kept for the metrics endpoint.
+ */
+public class ExpiringCache<K, V> {
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ExpiringCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            // Only remove the exact entry we saw, a fresh one may have been put meanwhile
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    /**
+     * Returns the cached value or computes it with the loader. A null result
+     * from the loader is not cached.
+     */
+    public V getOrLoad(K key, Function<K, V> loader, long ttlMillis) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value, System.currentTimeMillis() + ttlMillis);
+        }
+        return value;
+    }
+
+    public void put(K key, V value, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Atomically replaces the value for a key, see {@link ConcurrentHashMap#compute}.
+     * The function receives null when there is no live entry and may return null
+     * to remove the mapping.
+     */
+    public V compute(K key, Function<V, V> remapping, long expiresAt) {
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            makeRoom();
+        }
+        long now = System.currentTimeMillis();
+        Entry<V> result = entries.compute(key, (k, existing) -> {
+            V current = existing == null || existing.isExpired(now) ? null : existing.value();
+            V updated = remapping.apply(current);
+            return updated == null ? null : new Entry<>(updated, expiresAt);
+        });
+        return result == null ? null : result.value();
+    }
+
+    public V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /** Removes every expired entry and returns how many were dropped. */
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue().isExpired(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        evictions.add(removed);
+        return removed;
+    }
+
+    private void makeRoom() {
+        purgeExpired();
+        int target = (int) (maxSize * 0.9);
+        for (Iterator<K> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target; ) {
+            it.next();
+            it.remove();
+            evictions.increment();
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("size", (long) entries.size());
+        stats.put("maxSize", (long) maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
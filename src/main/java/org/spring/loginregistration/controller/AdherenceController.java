@@ -0,0 +1,52 @@
+package org.spring.loginregistration.controller;
+
+import org.spring.loginregistration.dto.AdherenceReport;
+import org.spring.loginregistration.service.AdherenceService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+public class AdherenceController {
+
+    private static final int DEFAULT_RANGE_DAYS = 30;
+
+    private final AdherenceService adherenceService;
+
+    public AdherenceController(AdherenceService adherenceService) {
+        this.adherenceService = adherenceService;
+    }
+
+    // Patient's own adherence; defaults to the last 30 days
+    @GetMapping("/medication/adherence")
+    public ResponseEntity<AdherenceReport> getMyAdherence(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(adherenceService.getPatientReport(userId, defaultFrom(from, to), to));
+    }
+
+    // Every patient assigned to the logged-in doctor
+    @GetMapping("/doctor/adherence")
+    public ResponseEntity<List<AdherenceReport>> getPanelAdherence(
+            Authentication authentication,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        Long doctorId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(adherenceService.getDoctorPanelReport(doctorId, defaultFrom(from, to), to));
+    }
+
+    private LocalDate defaultFrom(LocalDate from, LocalDate to) {
+        if (from != null) {
+            return from;
+        }
+        return (to != null ? to : LocalDate.now()).minusDays(DEFAULT_RANGE_DAYS - 1);
+    }
+}
@@ -1,7 +1,10 @@
 package org.spring.loginregistration.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
+import org.spring.loginregistration.dto.AnalyticsTimeseries;
 import org.spring.loginregistration.dto.DoctorDTO;
 import org.spring.loginregistration.dto.UserDTO;
+import org.spring.loginregistration.dto.UserPage;
 import org.spring.loginregistration.model.Appointment;
 import org.spring.loginregistration.model.Doctor;
 import org.spring.loginregistration.service.AdminService;
@@ -34,10 +37,10 @@ public class AdminController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<String> loginAdmin(@RequestBody Map<String, String> request){
+    public ResponseEntity<String> loginAdmin(@RequestBody Map<String, String> request, HttpServletRequest httpRequest){
         String email = request.get("email");
         String password = request.get("password");
-        String msg = adminService.login(email, password);
+        String msg = adminService.login(email, password, httpRequest.getRemoteAddr());
         return ResponseEntity.ok("Admin Login successfully. Token: " + msg);
     }
 
@@ -52,9 +55,24 @@ public class AdminController {
         return ResponseEntity.ok(adminService.getAllUsers());
     }
 
+    // doctor: assigned | unassigned | <doctorId>; disease: substring of the known disease
+    @GetMapping("/users/page")
+    public ResponseEntity<UserPage> getUsers(@RequestParam(required = false) String doctor,
+                                             @RequestParam(required = false) String disease,
+                                             @RequestParam(required = false) Long cursor,
+                                             @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(adminService.getUsers(doctor, disease, cursor, size));
+    }
+
     @GetMapping("/doctors") // Matches Frontend
-    public ResponseEntity<List<DoctorDTO>> getAllDoctors() {
-        return ResponseEntity.ok(adminService.getAllDoctors());
+    public ResponseEntity<List<DoctorDTO>> getAllDoctors(@RequestParam(required = false) String specialization,
+                                                         @RequestParam(required = false) String degree) {
+        return ResponseEntity.ok(adminService.getAllDoctors(specialization, degree));
+    }
+
+    @GetMapping("/doctors/specializations")
+    public ResponseEntity<Map<String, Integer>> getDoctorSpecializations() {
+        return ResponseEntity.ok(adminService.getDoctorSpecializations());
     }
 
     @PostMapping("/remove-doctor") // Matches Frontend
@@ -77,4 +95,11 @@ public class AdminController {
     public ResponseEntity<Map<String, Long>> getAnalytics() {
         return ResponseEntity.ok(adminService.getAnalytics());
     }
+
+    // Daily values for the last `days` days; metrics is comma-separated, e.g. signups,orders.placed
+    @GetMapping("/analytics/timeseries")
+    public ResponseEntity<AnalyticsTimeseries> getAnalyticsTimeseries(@RequestParam(required = false) Integer days,
+                                                                      @RequestParam(required = false) List<String> metrics) {
+        return ResponseEntity.ok(adminService.getAnalyticsTimeseries(days, metrics));
+    }
 }
@@ -1,7 +1,10 @@
 package org.spring.loginregistration.controller;
 
+import org.spring.loginregistration.dto.DoctorSnapshot;
+import org.spring.loginregistration.dto.UserSnapshot;
 import org.spring.loginregistration.model.*;
 import org.spring.loginregistration.repository.*;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -26,16 +29,16 @@ public class AiController {
     private String API_KEY; 
     private final String API_URL = "https://api.groq.com/openai/v1/chat/completions";
 
-    private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalCache;
     private final PrescriptionRepository prescriptionRepository;
     private final AppointmentRepository appointmentRepository;
     private final PharmacyOrderRepository orderRepository;
     private final UserProfileRepository userProfileRepository;
 
-    public AiController(UserRepository userRepository, PrescriptionRepository prescriptionRepository, 
+    public AiController(PrincipalSnapshotCache principalCache, PrescriptionRepository prescriptionRepository, 
                         AppointmentRepository appointmentRepository, PharmacyOrderRepository orderRepository,
                         UserProfileRepository userProfileRepository) {
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
         this.prescriptionRepository = prescriptionRepository;
         this.appointmentRepository = appointmentRepository;
         this.orderRepository = orderRepository;
@@ -48,7 +51,8 @@ public class AiController {
         
 
         Long userId = (Long) authentication.getPrincipal();
-        User user = userRepository.findById(userId).orElseThrow();
+        UserSnapshot snapshot = principalCache.getUser(userId);
+        User user = principalCache.userReference(userId);
         Optional<UserProfile> profileOpt = userProfileRepository.findByUser(user);
         
         List<Prescription> prescriptions = prescriptionRepository.findByUserOrderByIdDesc(user);
@@ -59,8 +63,8 @@ public class AiController {
 
         StringBuilder context = new StringBuilder();
         context.append("--- PATIENT PROFILE ---\n");
-        context.append("Name: ").append(user.getUsername()).append("\n");
-        context.append("Email: ").append(user.getEmail()).append("\n");
+        context.append("Name: ").append(snapshot.getUsername()).append("\n");
+        context.append("Email: ").append(snapshot.getEmail()).append("\n");
         
         if (profileOpt.isPresent()) {
             UserProfile p = profileOpt.get();
@@ -72,9 +76,10 @@ public class AiController {
         }
 
         context.append("\n--- ASSIGNED DOCTOR ---\n");
-        if (user.getDoctor() != null) {
-            context.append("Doctor Name: Dr. ").append(user.getDoctor().getUserName()).append("\n");
-            context.append("Doctor Email: ").append(user.getDoctor().getEmail()).append("\n");
+        if (snapshot.getDoctorId() != null) {
+            DoctorSnapshot doctor = principalCache.getDoctor(snapshot.getDoctorId());
+            context.append("Doctor Name: Dr. ").append(doctor.getUserName()).append("\n");
+            context.append("Doctor Email: ").append(doctor.getEmail()).append("\n");
         } else {
             context.append("No doctor assigned yet.\n");
         }
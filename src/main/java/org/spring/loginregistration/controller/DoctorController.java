@@ -1,5 +1,6 @@
 package org.spring.loginregistration.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.spring.loginregistration.dto.DoctorPatientData;
 import org.spring.loginregistration.dto.PrescriptionRequest;
 import org.spring.loginregistration.model.Appointment;
@@ -46,10 +47,10 @@ public class DoctorController {
     }
 
     @PostMapping("/doctor/login")
-    public String doctorLogin(@RequestBody Map<String, String> request){
+    public String doctorLogin(@RequestBody Map<String, String> request, HttpServletRequest httpRequest){
         String email = request.get("email");
         String password = request.get("password");
-        return "Login Successful. Token: " + doctorService.doctorLogin(email, password);
+        return "Login Successful. Token: " + doctorService.doctorLogin(email, password, httpRequest.getRemoteAddr());
     }
 
     @GetMapping("/doctor/myUsers")
@@ -82,6 +83,7 @@ public class DoctorController {
                 doctorId,
                 request.getUserId(),
                 request.getMedicines(),
+                request.getDoseTimes(),
                 request.getDiagnosis(),
                 request.getNote(),
                 request.getNextAppointmentDate()
@@ -2,6 +2,8 @@ package org.spring.loginregistration.controller;
 
 import org.spring.loginregistration.model.DoctorProfile;
 import org.spring.loginregistration.repository.DoctorProfileRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
+import org.spring.loginregistration.service.DoctorDirectory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -11,16 +13,24 @@ import org.springframework.web.bind.annotation.*;
 public class DoctorProfileController {
 
     private final DoctorProfileRepository doctorProfileRepository;
+    private final PrincipalSnapshotCache principalCache;
+    private final DoctorDirectory doctorDirectory;
 
-    public DoctorProfileController(DoctorProfileRepository doctorProfileRepository) {
+    public DoctorProfileController(DoctorProfileRepository doctorProfileRepository, PrincipalSnapshotCache principalCache,
+                                   DoctorDirectory doctorDirectory) {
         this.doctorProfileRepository = doctorProfileRepository;
+        this.principalCache = principalCache;
+        this.doctorDirectory = doctorDirectory;
     }
 
     @PostMapping("/profile")
     public ResponseEntity<DoctorProfile> saveProfile(Authentication authentication, @RequestBody DoctorProfile profile) {
         Long doctorId = (Long) authentication.getPrincipal();
         profile.setId(doctorId);
-        return ResponseEntity.ok(doctorProfileRepository.save(profile));
+        DoctorProfile saved = doctorProfileRepository.save(profile);
+        principalCache.invalidateDoctor(doctorId);
+        doctorDirectory.invalidate();
+        return ResponseEntity.ok(saved);
     }
 
     @GetMapping("/profile")
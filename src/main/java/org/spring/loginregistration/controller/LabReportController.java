@@ -3,7 +3,7 @@ package org.spring.loginregistration.controller;
 import org.spring.loginregistration.model.LabReport;
 import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.repository.LabReportRepository;
-import org.spring.loginregistration.repository.UserRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -23,12 +23,12 @@ import java.util.UUID;
 public class LabReportController {
 
     private final LabReportRepository reportRepository;
-    private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalCache;
     private final Path fileStorageLocation;
 
-    public LabReportController(LabReportRepository reportRepository, UserRepository userRepository) {
+    public LabReportController(LabReportRepository reportRepository, PrincipalSnapshotCache principalCache) {
         this.reportRepository = reportRepository;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
         this.fileStorageLocation = Paths.get("uploads/reports").toAbsolutePath().normalize();
         try {
             Files.createDirectories(this.fileStorageLocation);
@@ -45,7 +45,7 @@ public class LabReportController {
             @RequestParam("reportDate") String reportDate
     ) {
         Long userId = (Long) authentication.getPrincipal();
-        User user = userRepository.findById(userId).orElseThrow();
+        User user = principalCache.userReference(userId);
 
         try {
             String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
@@ -70,13 +70,13 @@ public class LabReportController {
     @GetMapping("/my")
     public ResponseEntity<List<LabReport>> getMyReports(Authentication authentication) {
         Long userId = (Long) authentication.getPrincipal();
-        User user = userRepository.findById(userId).orElseThrow();
+        User user = principalCache.userReference(userId);
         return ResponseEntity.ok(reportRepository.findByUserOrderByUploadDateDesc(user));
     }
 
     @GetMapping("/user/{userId}")
     public ResponseEntity<List<LabReport>> getUserReports(@PathVariable Long userId) {
-        User user = userRepository.findById(userId).orElseThrow();
+        User user = principalCache.userReference(userId);
         return ResponseEntity.ok(reportRepository.findByUserOrderByUploadDateDesc(user));
     }
 }
@@ -1,5 +1,6 @@
 package org.spring.loginregistration.controller;
 
+import org.spring.loginregistration.dto.TrackerStatusUpdate;
 import org.spring.loginregistration.model.MedicationTracker;
 import org.spring.loginregistration.service.MedicationTrackerService;
 import org.springframework.http.ResponseEntity;
@@ -24,6 +25,14 @@ public class MedicationTrackerController {
         return ResponseEntity.ok(trackerService.getDailyMedications(userId));
     }
 
+    // Bulk, idempotent alternative to toggle: [{"id": 1, "taken": true, "version": 0}, ...]
+    @PutMapping("/status")
+    public ResponseEntity<List<MedicationTracker>> setStatuses(Authentication authentication,
+                                                               @RequestBody List<TrackerStatusUpdate> updates) {
+        Long userId = (Long) authentication.getPrincipal();
+        return ResponseEntity.ok(trackerService.setStatuses(userId, updates));
+    }
+
     @PutMapping("/{id}/toggle")
     public ResponseEntity<MedicationTracker> toggleStatus(@PathVariable Long id) {
         return ResponseEntity.ok(trackerService.toggleStatus(id));
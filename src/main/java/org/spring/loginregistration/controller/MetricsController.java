@@ -0,0 +1,31 @@
+package org.spring.loginregistration.controller;
+
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/admin/metrics")
+public class MetricsController {
+
+    private final List<StatsProvider> statsProviders;
+
+    public MetricsController(List<StatsProvider> statsProviders) {
+        this.statsProviders = statsProviders;
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Long>>> getMetrics() {
+        Map<String, Map<String, Long>> metrics = new TreeMap<>();
+        for (StatsProvider provider : statsProviders) {
+            metrics.put(provider.getStatsName(), new TreeMap<>(provider.getStats()));
+        }
+        return ResponseEntity.ok(metrics);
+    }
+}
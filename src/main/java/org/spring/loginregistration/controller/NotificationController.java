@@ -1,14 +1,18 @@
 package org.spring.loginregistration.controller;
 
+import org.spring.loginregistration.dto.NotificationDTO;
+import org.spring.loginregistration.dto.NotificationPage;
 import org.spring.loginregistration.model.Doctor;
-import org.spring.loginregistration.model.Notification;
 import org.spring.loginregistration.model.User;
-import org.spring.loginregistration.repository.DoctorRepository;
-import org.spring.loginregistration.repository.UserRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
 import org.spring.loginregistration.service.NotificationService;
+import org.spring.loginregistration.service.NotificationStreamService;
+import org.spring.loginregistration.service.UnreadCounterService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -17,28 +21,39 @@ import java.util.List;
 public class NotificationController {
 
     private final NotificationService notificationService;
-    private final UserRepository userRepository;
-    private final DoctorRepository doctorRepository;
+    private final PrincipalSnapshotCache principalCache;
+    private final NotificationStreamService streamService;
 
-    public NotificationController(NotificationService notificationService, UserRepository userRepository, DoctorRepository doctorRepository) {
+    public NotificationController(NotificationService notificationService, PrincipalSnapshotCache principalCache,
+                                  NotificationStreamService streamService) {
         this.notificationService = notificationService;
-        this.userRepository = userRepository;
-        this.doctorRepository = doctorRepository;
+        this.principalCache = principalCache;
+        this.streamService = streamService;
     }
 
+    // First page only, as a plain list; use /feed with the returned cursor for older entries
     @GetMapping
-    public ResponseEntity<List<Notification>> getNotifications(Authentication authentication) {
+    public ResponseEntity<List<NotificationDTO>> getNotifications(Authentication authentication) {
+        return ResponseEntity.ok(loadPage(authentication, null, null).getItems());
+    }
+
+    @GetMapping("/feed")
+    public ResponseEntity<NotificationPage> getFeed(Authentication authentication,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(loadPage(authentication, cursor, size));
+    }
+
+    private NotificationPage loadPage(Authentication authentication, String cursor, Integer size) {
         Long id = (Long) authentication.getPrincipal();
         String role = authentication.getAuthorities().iterator().next().getAuthority();
-        
-        System.out.println("🔔 Fetching notifications for ID: " + id + " with Role: " + role);
 
         if ("DOCTOR".equals(role)) {
-            Doctor doctor = doctorRepository.findById(id).orElseThrow();
-            return ResponseEntity.ok(notificationService.getDoctorNotifications(doctor));
+            Doctor doctor = principalCache.doctorReference(id);
+            return notificationService.getDoctorNotifications(doctor, cursor, size);
         } else {
-            User user = userRepository.findById(id).orElseThrow();
-            return ResponseEntity.ok(notificationService.getMyNotifications(user));
+            User user = principalCache.userReference(id);
+            return notificationService.getMyNotifications(user, cursor, size);
         }
     }
 
@@ -48,10 +63,10 @@ public class NotificationController {
         String role = authentication.getAuthorities().iterator().next().getAuthority();
 
         if ("DOCTOR".equals(role)) {
-            Doctor doctor = doctorRepository.findById(id).orElseThrow();
+            Doctor doctor = principalCache.doctorReference(id);
             return ResponseEntity.ok(notificationService.getDoctorUnreadCount(doctor));
         } else {
-            User user = userRepository.findById(id).orElseThrow();
+            User user = principalCache.userReference(id);
             return ResponseEntity.ok(notificationService.getUnreadCount(user));
         }
     }
@@ -62,12 +77,29 @@ public class NotificationController {
         String role = authentication.getAuthorities().iterator().next().getAuthority();
 
         if ("DOCTOR".equals(role)) {
-            Doctor doctor = doctorRepository.findById(id).orElseThrow();
+            Doctor doctor = principalCache.doctorReference(id);
             notificationService.markDoctorAllAsRead(doctor);
         } else {
-            User user = userRepository.findById(id).orElseThrow();
+            User user = principalCache.userReference(id);
             notificationService.markAllAsRead(user);
         }
         return ResponseEntity.ok("Marked as read");
     }
+
+    // Push channel replacing unread-count polling. EventSource cannot send headers, so the
+    // token may also be passed as ?access_token= (see JwtAuthFilter).
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Authentication authentication,
+                             @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        Long id = (Long) authentication.getPrincipal();
+        String role = authentication.getAuthorities().iterator().next().getAuthority();
+
+        if ("DOCTOR".equals(role)) {
+            Doctor doctor = principalCache.doctorReference(id);
+            return streamService.connect(UnreadCounterService.doctorKey(id), lastEventId, notificationService.getDoctorUnreadCount(doctor));
+        } else {
+            User user = principalCache.userReference(id);
+            return streamService.connect(UnreadCounterService.userKey(id), lastEventId, notificationService.getUnreadCount(user));
+        }
+    }
 }
@@ -1,12 +1,23 @@
 package org.spring.loginregistration.controller;
 
+import org.spring.loginregistration.dto.MedicineImportStatus;
+import org.spring.loginregistration.dto.MedicineSuggestion;
+import org.spring.loginregistration.dto.OrderPage;
+import org.spring.loginregistration.dto.OrderStatusChange;
+import org.spring.loginregistration.dto.OrderStatusResult;
 import org.spring.loginregistration.dto.PharmacyOrderResponse;
+import org.spring.loginregistration.model.Medicine;
 import org.spring.loginregistration.model.PharmacyOrder;
+import org.spring.loginregistration.service.MedicineImportService;
 import org.spring.loginregistration.service.PharmacyService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -14,9 +25,11 @@ import java.util.Map;
 @RequestMapping("/pharmacy")
 public class PharmacyController {
     private final PharmacyService pharmacyService;
+    private final MedicineImportService medicineImportService;
 
-    public PharmacyController(PharmacyService pharmacyService) {
+    public PharmacyController(PharmacyService pharmacyService, MedicineImportService medicineImportService) {
         this.pharmacyService = pharmacyService;
+        this.medicineImportService = medicineImportService;
     }
 
     @PostMapping("/prices")
@@ -24,14 +37,22 @@ public class PharmacyController {
         return ResponseEntity.ok(pharmacyService.getPrices(medicines));
     }
 
+    // Autocomplete for prescription writing: prefix matches first, then close spellings
+    @GetMapping("/medicines/search")
+    public ResponseEntity<List<MedicineSuggestion>> searchMedicines(@RequestParam String q,
+                                                                    @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(pharmacyService.searchMedicines(q, limit));
+    }
+
     @PostMapping("/order")
-    public ResponseEntity<PharmacyOrder> placeOrder(Authentication authentication, @RequestBody Map<String, Object> request) {
+    public ResponseEntity<PharmacyOrder> placeOrder(Authentication authentication, @RequestBody Map<String, Object> request,
+                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         Long userId = (Long) authentication.getPrincipal();
         List<String> medicines = (List<String>) request.get("medicines");
         String address = (String) request.get("address");
         double total = Double.parseDouble(request.get("total").toString());
 
-        return ResponseEntity.ok(pharmacyService.placeOrder(userId, medicines, address, total));
+        return ResponseEntity.ok(pharmacyService.placeOrder(userId, idempotencyKey, medicines, address, total));
     }
 
     @GetMapping("/my-orders") // UPDATED RETURN TYPE
@@ -41,11 +62,64 @@ public class PharmacyController {
     }
 
     // Admin Endpoints
+    // Every order, newest first; /admin/orders filters and pages
     @GetMapping("/admin/all-orders")
     public ResponseEntity<List<PharmacyOrderResponse>> getAllOrders() {
         return ResponseEntity.ok(pharmacyService.getAllOrders());
     }
 
+    @GetMapping("/admin/orders")
+    public ResponseEntity<OrderPage> getOrders(@RequestParam(required = false) String status,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                               @RequestParam(required = false) Long cursor,
+                                               @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(pharmacyService.getOrders(status, from, to, cursor, size));
+    }
+
+    @PostMapping("/admin/medicines")
+    public ResponseEntity<Medicine> saveMedicine(@RequestBody Map<String, Object> request) {
+        String name = (String) request.get("name");
+        double price = Double.parseDouble(String.valueOf(request.get("price")));
+        return ResponseEntity.ok(pharmacyService.saveMedicine(name, price));
+    }
+
+    // Body: {"name": ..., "stock": 120}; a null stock stops tracking the medicine
+    @PutMapping("/admin/medicines/stock")
+    public ResponseEntity<Map<String, Object>> setStock(@RequestBody Map<String, Object> request) {
+        String name = (String) request.get("name");
+        Object stock = request.get("stock");
+        Integer level = stock == null ? null : Integer.valueOf(String.valueOf(stock));
+        pharmacyService.setStock(name, level);
+        Map<String, Object> response = new HashMap<>();
+        response.put("name", name);
+        response.put("stock", level);
+        return ResponseEntity.ok(response);
+    }
+
+    // Raw CSV or NDJSON body, read as it arrives; format defaults from the Content-Type
+    @PostMapping("/admin/medicines/import")
+    public ResponseEntity<MedicineImportStatus> importMedicines(InputStream body,
+                                                                @RequestParam(required = false) String format,
+                                                                @RequestHeader(value = "Content-Type", required = false) String contentType) {
+        if (format == null) {
+            format = contentType != null && contentType.contains("json") ? "ndjson" : "csv";
+        }
+        return ResponseEntity.ok(medicineImportService.importStream(body, format));
+    }
+
+    @GetMapping("/admin/medicines/import")
+    public ResponseEntity<MedicineImportStatus> getImportStatus() {
+        MedicineImportStatus status = medicineImportService.getStatus();
+        return status == null ? ResponseEntity.noContent().build() : ResponseEntity.ok(status);
+    }
+
+    // Body: [{"orderId": 1, "status": "DISPATCHED"}, ...]; invalid transitions are reported, not applied
+    @PostMapping("/admin/orders/status")
+    public ResponseEntity<OrderStatusResult> updateStatuses(@RequestBody List<OrderStatusChange> changes) {
+        return ResponseEntity.ok(pharmacyService.updateOrderStatuses(changes));
+    }
+
     @PutMapping("/admin/order/{id}/status")
     public ResponseEntity<PharmacyOrder> updateStatus(@PathVariable Long id, @RequestBody Map<String, String> request) {
         return ResponseEntity.ok(pharmacyService.updateOrderStatus(id, request.get("status")));
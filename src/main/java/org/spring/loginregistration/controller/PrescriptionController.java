@@ -29,6 +29,7 @@ public class PrescriptionController {
                 doctorId, 
                 request.getUserId(), 
                 request.getMedicines(), 
+                request.getDoseTimes(), 
                 request.getDiagnosis(), 
                 request.getNote(), 
                 request.getNextAppointmentDate()
@@ -1,5 +1,6 @@
 package org.spring.loginregistration.controller;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.spring.loginregistration.service.UserService;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -36,10 +37,10 @@ public class UserController {
     }
 
     @PostMapping("/login")
-    public ResponseEntity<String> Login(@RequestBody Map<String, String> request){
+    public ResponseEntity<String> Login(@RequestBody Map<String, String> request, HttpServletRequest httpRequest){
         String email = request.get("email");
         String password = request.get("password");
-        String msg = userService.loginUser(email, password);
+        String msg = userService.loginUser(email, password, httpRequest.getRemoteAddr());
         return ResponseEntity.ok("Login Successful. Token: " + msg);
     }
 
@@ -0,0 +1,20 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdherenceReport {
+    private Long userId;
+    private String username;
+    private LocalDate from;
+    private LocalDate to;
+    private AdherenceStat overall;
+    private List<AdherenceStat> byMedicine;
+}
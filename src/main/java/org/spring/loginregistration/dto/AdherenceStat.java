@@ -0,0 +1,15 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AdherenceStat {
+    private String medicineName; // null for a patient's overall figure
+    private long scheduledDoses;
+    private long takenDoses;
+    private double adherencePercent;
+}
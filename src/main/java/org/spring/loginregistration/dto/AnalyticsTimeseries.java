@@ -0,0 +1,15 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class AnalyticsTimeseries {
+    private final List<LocalDate> days;
+    private final Map<String, List<Long>> series; // metric -> one value per entry of days
+}
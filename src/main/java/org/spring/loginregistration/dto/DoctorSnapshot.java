@@ -0,0 +1,12 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class DoctorSnapshot {
+    private final Long id;
+    private final String userName;
+    private final String email;
+}
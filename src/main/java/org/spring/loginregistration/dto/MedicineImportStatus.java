@@ -0,0 +1,23 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MedicineImportStatus {
+    private String state;      // RUNNING, COMPLETED or FAILED
+    private String format;     // csv or ndjson
+    private long linesRead;
+    private long upserted;
+    private long rejected;
+    private long rowsPerSecond;
+    private List<String> errors; // first few rejected lines, with line numbers
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,15 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class MedicineSuggestion {
+    private String name;
+    private Double price;     // null if the catalog has no price for it
+    private String matchType; // PREFIX or FUZZY
+    private double score;
+}
@@ -0,0 +1,17 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class NotificationDTO {
+    private Long id;
+    private String message;
+    private boolean read;
+    private LocalDateTime timestamp;
+}
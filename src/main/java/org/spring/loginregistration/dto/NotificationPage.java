@@ -0,0 +1,13 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class NotificationPage {
+    private final List<NotificationDTO> items;
+    private final String nextCursor; // null on the last page
+}
@@ -0,0 +1,14 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class OrderStatusResult {
+    private final List<Long> updated;
+    private final Map<Long, String> rejected; // order id -> reason
+}
@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -18,4 +19,10 @@ public class PharmacyOrderResponse {
     private String status;
     private LocalDateTime orderDate;
     private String estimatedTime;
+
+    // Used by the admin listing query; medicines are loaded separately for the whole page
+    public PharmacyOrderResponse(Long id, String patientName, double totalAmount, String deliveryAddress,
+                                 String status, LocalDateTime orderDate, String estimatedTime) {
+        this(id, patientName, new ArrayList<>(), totalAmount, deliveryAddress, status, orderDate, estimatedTime);
+    }
 }
@@ -2,12 +2,14 @@ package org.spring.loginregistration.dto;
 
 import lombok.Data;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @Data
 public class PrescriptionRequest {
     private Long userId;
     private List<String> medicines;
+    private List<LocalTime> doseTimes; // optional, e.g. ["08:00", "21:00"]
     private String diagnosis;
     private String note;
     private LocalDate nextAppointmentDate;
@@ -0,0 +1,10 @@
+package org.spring.loginregistration.dto;
+
+import lombok.Data;
+
+@Data
+public class TrackerStatusUpdate {
+    private Long id;
+    private boolean taken;
+    private Long version; // optional; when set the update is rejected if the tracker changed since
+}
@@ -0,0 +1,13 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class UserPage {
+    private final List<UserDTO> items;
+    private final Long nextCursor; // pass back as cursor for the next page; null on the last page
+}
@@ -0,0 +1,13 @@
+package org.spring.loginregistration.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class UserSnapshot {
+    private final Long id;
+    private final String username;
+    private final String email;
+    private final Long doctorId; // null when no doctor is assigned; details via the doctor snapshot
+}
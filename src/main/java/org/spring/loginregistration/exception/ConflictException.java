@@ -0,0 +1,10 @@
+package org.spring.loginregistration.exception;
+
+/**
+ * Thrown when a write is based on stale data (e.g. an outdated version); mapped to HTTP 409.
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package org.spring.loginregistration.exception;
+
+/**
+ * Thrown when a caller is being rate limited or the server is shedding load; mapped to HTTP 429.
+ */
+public class TooManyRequestsException extends RuntimeException {
+    public TooManyRequestsException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package org.spring.loginregistration.metrics;
+
+import java.util.Map;
+
+/**
+ * Implemented by components that keep in-process counters (caches, queues, jobs).
+ * Every bean of this type is listed under {@code GET /admin/metrics}.
+ */
+public interface StatsProvider {
+
+    String getStatsName();
+
+    Map<String, Long> getStats();
+}
@@ -0,0 +1,35 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * One patient's doses of one medicine for one calendar month, as two bitsets: bit (day - 1)
+ * of scheduledBits is set when a tracker row exists for that day, and the same bit of
+ * takenBits when it was marked taken. Maintained by AdherenceService.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "adherence_month", uniqueConstraints = @UniqueConstraint(name = "uk_adherence_user_month_medicine",
+        columnNames = {"user_id", "month_start", "medicine_name"}))
+public class AdherenceMonth {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "medicine_name")
+    private String medicineName;
+
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+
+    private int scheduledBits;
+    private int takenBits;
+}
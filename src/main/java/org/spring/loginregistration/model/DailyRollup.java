@@ -0,0 +1,31 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+/**
+ * One analytics counter for one day, e.g. ("orders.placed", 2026-10-18) = 42. Rows only ever
+ * grow by the deltas DailyRollupService flushes. Day 1970-01-01 holds what was seeded from rows
+ * that have no creation time, so they count in totals but in no time series.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "daily_rollup", uniqueConstraints = @UniqueConstraint(name = "uk_daily_rollup_day_metric",
+        columnNames = {"rollup_day", "metric"}))
+public class DailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_day") // DAY is a keyword in H2
+    private LocalDate day;
+
+    @Column(length = 64)
+    private String metric;
+
+    private long amount;
+}
@@ -0,0 +1,29 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted copy of one delivery-time histogram kept by DeliveryEtaService, keyed by
+ * "hour|area". Bucket counts are stored comma-separated; the bucket layout is fixed in code.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "delivery_eta_sketch")
+public class DeliveryEtaSketch {
+    @Id
+    private String sketchKey;
+
+    private int hourOfDay; // -1 for all hours
+    private String area;   // "*" for all areas
+
+    @Column(length = 2000)
+    private String counts;
+
+    private long total;
+    private LocalDateTime updatedAt;
+}
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -29,4 +30,12 @@ public class Doctor {
     @OneToOne(mappedBy = "doctor", cascade = CascadeType.ALL)
     @JsonIgnoreProperties("doctor")
     private DoctorProfile doctorProfile;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt; // null for doctors registered before it was added
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
 }
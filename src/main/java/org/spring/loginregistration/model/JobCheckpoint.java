@@ -0,0 +1,26 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Progress of a long-running background job, so a run that was interrupted (deploy, crash)
+ * resumes after the last key it fully processed instead of starting over.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "job_checkpoint")
+public class JobCheckpoint {
+    @Id
+    private String jobName;
+
+    private LocalDate targetDate;
+    private Long lastKey;
+    private boolean completed;
+    private LocalDateTime updatedAt;
+}
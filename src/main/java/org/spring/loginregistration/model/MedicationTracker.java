@@ -7,6 +7,9 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
+// One row per medicine per day; the (user_id, date) prefix also serves the daily lookup
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_tracker_user_date_medicine",
+        columnNames = {"user_id", "date", "medicine_name"}))
 @Getter
 @Setter
 public class MedicationTracker {
@@ -21,4 +24,7 @@ public class MedicationTracker {
     private String medicineName;
     private LocalDate date;
     private boolean isTaken;
+
+    @Version
+    private Long version;
 }
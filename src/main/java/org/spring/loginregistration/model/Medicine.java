@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Locale;
+
 @Entity
+// Unique on the normalized name, so bulk imports upsert the same row the catalog matches
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_medicine_normalized_name", columnNames = "normalized_name"))
 @Getter
 @Setter
 public class Medicine {
@@ -13,7 +17,30 @@ public class Medicine {
     private Long id;
 
     private String name;
+
+    // normalizeName(name); kept in sync on every JPA save, set explicitly by the bulk import
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
     private double price;
+    // null = not tracked, never limits orders. Written only by StockService's conditional updates,
+    // so saving a Medicine (e.g. a price change) can never overwrite a concurrent reservation
+    @Column(insertable = false, updatable = false)
+    private Integer stock;
+
+    /** Case-insensitive, whitespace-collapsed form of a medicine name; "" for null. */
+    public static String normalizeName(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        normalizedName = name == null ? null : normalizeName(name);
+    }
 
     public Medicine() {}
     public Medicine(String name, double price) {
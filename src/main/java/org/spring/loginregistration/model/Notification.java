@@ -7,6 +7,11 @@ import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        // Serve the keyset-paged feed straight from the index, newest first
+        @Index(name = "idx_notification_user_ts", columnList = "user_id, timestamp, id"),
+        @Index(name = "idx_notification_doctor_ts", columnList = "doctor_id, timestamp, id")
+})
 @Getter
 @Setter
 public class Notification {
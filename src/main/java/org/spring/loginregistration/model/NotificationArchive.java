@@ -0,0 +1,27 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read notifications moved out of the hot notification table by NotificationRetentionService.
+ * Keeps the original id and plain recipient ids (no foreign keys, no read flag) so rows stay
+ * small and archiving never locks users or doctors.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "notification_archive")
+public class NotificationArchive {
+    @Id
+    private Long id;
+
+    private Long userId;
+    private Long doctorId;
+    private String message;
+    private LocalDateTime timestamp;
+    private LocalDateTime archivedAt;
+}
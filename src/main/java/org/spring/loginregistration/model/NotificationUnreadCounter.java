@@ -0,0 +1,23 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Persisted unread-notification count per recipient ("USER:12", "DOCTOR:3"), written back
+ * periodically from the in-memory counters so /notifications/unread-count never runs a COUNT.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "notification_unread_counter")
+public class NotificationUnreadCounter {
+    @Id
+    private String recipientKey;
+
+    private long unreadCount;
+    private LocalDateTime updatedAt;
+}
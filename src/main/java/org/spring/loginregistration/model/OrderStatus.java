@@ -0,0 +1,33 @@
+package org.spring.loginregistration.model;
+
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Lifecycle of a PharmacyOrder: PENDING -> CONFIRMED -> DISPATCHED -> DELIVERED, and any order
+ * not yet delivered can be CANCELLED. PharmacyOrder keeps the status as its name in a string
+ * column, so rows written before this enum existed still load.
+ */
+public enum OrderStatus {
+    PENDING, CONFIRMED, DISPATCHED, DELIVERED, CANCELLED;
+
+    /** Statuses an order may move to this one from. */
+    public Set<OrderStatus> allowedFrom() {
+        return switch (this) {
+            case PENDING -> EnumSet.noneOf(OrderStatus.class);
+            case CONFIRMED -> EnumSet.of(PENDING);
+            case DISPATCHED -> EnumSet.of(CONFIRMED);
+            case DELIVERED -> EnumSet.of(DISPATCHED);
+            case CANCELLED -> EnumSet.of(PENDING, CONFIRMED, DISPATCHED);
+        };
+    }
+
+    public static OrderStatus parse(String status) {
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase(Locale.ROOT));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Unknown order status: " + status);
+        }
+    }
+}
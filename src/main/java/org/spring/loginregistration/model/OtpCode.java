@@ -0,0 +1,22 @@
+package org.spring.loginregistration.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Pending OTP (or active lockout) for an email, used when otp.store=jdbc so any node can verify it.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "otp_code", indexes = @Index(name = "idx_otp_code_expires_at", columnList = "expires_at"))
+public class OtpCode {
+    @Id
+    private String email;
+
+    private String otp;
+    private long expiresAt; // epoch millis
+    private int attempts;
+    private long lockedUntil; // epoch millis, 0 when not locked
+}
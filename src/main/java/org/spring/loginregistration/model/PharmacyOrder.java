@@ -8,6 +8,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+// Admin listing pages newest-first by id, optionally within one status
+@Table(indexes = @Index(name = "idx_pharmacy_order_status_id", columnList = "status, id"))
 @Getter
 @Setter
 public class PharmacyOrder {
@@ -28,4 +30,5 @@ public class PharmacyOrder {
     private String status; 
     private LocalDateTime orderDate;
     private String estimatedTime;
+    private Boolean stockReserved; // true if placing it took tracked stock, which a cancel gives back
 }
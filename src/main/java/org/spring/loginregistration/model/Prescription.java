@@ -5,6 +5,7 @@ import lombok.Getter;
 import lombok.Setter;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @Getter
@@ -18,6 +19,9 @@ public class Prescription {
     @ElementCollection
     private List<String> medicines;
 
+    @ElementCollection
+    private List<LocalTime> doseTimes; // daily dose schedule, e.g. 08:00, 14:00, 21:00
+
     private String diagnoses;
     private LocalDate nextAppointmentDate;
     private String note;
@@ -5,8 +5,9 @@ import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import java.time.LocalDateTime;
 
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_users_doctor_id", columnList = "doctor_id"))
 @Getter
 @Setter
 @Entity
@@ -32,4 +33,12 @@ public class User {
     @JoinColumn(name = "admin_id")
     @JsonIgnore
     private Admin admin;
+
+    @Column(updatable = false)
+    private LocalDateTime createdAt; // signup time; null for accounts older than the column
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,13 @@
+package org.spring.loginregistration.repository;
+
+import org.spring.loginregistration.model.AdherenceMonth;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface AdherenceMonthRepository extends JpaRepository<AdherenceMonth, Long> {
+    List<AdherenceMonth> findByUserIdAndMonthStartBetween(Long userId, LocalDate from, LocalDate to);
+    List<AdherenceMonth> findByUserIdInAndMonthStartBetween(Collection<Long> userIds, LocalDate from, LocalDate to);
+}
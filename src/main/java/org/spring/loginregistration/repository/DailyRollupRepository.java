@@ -0,0 +1,16 @@
+package org.spring.loginregistration.repository;
+
+import org.spring.loginregistration.model.DailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, Long> {
+    List<DailyRollup> findByDayBetween(LocalDate from, LocalDate to);
+
+    // [metric, total] over all days
+    @Query("select r.metric, sum(r.amount) from DailyRollup r group by r.metric")
+    List<Object[]> sumByMetric();
+}
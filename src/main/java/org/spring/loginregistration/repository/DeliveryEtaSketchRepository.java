@@ -0,0 +1,7 @@
+package org.spring.loginregistration.repository;
+
+import org.spring.loginregistration.model.DeliveryEtaSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface DeliveryEtaSketchRepository extends JpaRepository<DeliveryEtaSketch, String> {
+}
@@ -1,9 +1,19 @@
 package org.spring.loginregistration.repository;
 
+import org.spring.loginregistration.dto.DoctorDTO;
 import org.spring.loginregistration.model.Doctor;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Optional<Doctor> findByEmail(String email);
+
+    // Every doctor with its profile's specialization and degree (null when there is no profile).
+    // Joined on the shared id: profiles saved through POST /doctor/profile have no doctor_id
+    @Query("select new org.spring.loginregistration.dto.DoctorDTO(d.doctorId, d.userName, d.email, p.specialization, p.degreeName) " +
+           "from Doctor d left join DoctorProfile p on p.id = d.doctorId order by d.doctorId")
+    List<DoctorDTO> findDirectoryEntries();
 }
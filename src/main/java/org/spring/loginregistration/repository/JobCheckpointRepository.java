@@ -0,0 +1,7 @@
+package org.spring.loginregistration.repository;
+
+import org.spring.loginregistration.model.JobCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobCheckpointRepository extends JpaRepository<JobCheckpoint, String> {
+}
@@ -3,12 +3,28 @@ package org.spring.loginregistration.repository;
 import org.spring.loginregistration.model.MedicationTracker;
 import org.spring.loginregistration.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface MedicationTrackerRepository extends JpaRepository<MedicationTracker, Long> {
     List<MedicationTracker> findByUserAndDate(User user, LocalDate date);
     Optional<MedicationTracker> findByUserAndDateAndMedicineName(User user, LocalDate date, String medicineName);
+
+    @Query("select t from MedicationTracker t where t.id in :ids and t.user.id = :userId")
+    List<MedicationTracker> findOwned(Collection<Long> ids, Long userId);
+
+    // Days materialized ahead of time (see TrackerPrematerializationJob) that nothing was recorded on yet
+    @Query("select t from MedicationTracker t where t.user.id = :userId and t.date > :date and t.isTaken = false")
+    List<MedicationTracker> findUntakenAfter(Long userId, LocalDate date);
+
+    // Set-based: only rows not already in the wanted state change, so repeating a request is a no-op
+    @Modifying(clearAutomatically = true)
+    @Query("update MedicationTracker t set t.isTaken = :taken, t.version = t.version + 1 " +
+            "where t.id in :ids and t.user.id = :userId and t.isTaken <> :taken")
+    int setTaken(Collection<Long> ids, Long userId, boolean taken);
 }
@@ -2,8 +2,20 @@ package org.spring.loginregistration.repository;
 
 import org.spring.loginregistration.model.Medicine;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface MedicineRepository extends JpaRepository<Medicine, Long> {
-    Optional<Medicine> findByName(String name);
+
+    // [name, price] rows for MedicineCatalog, oldest first
+    @Query("select m.name, m.price from Medicine m where m.name is not null order by m.id")
+    List<Object[]> findAllNamesAndPrices();
+
+    @Query("select m.name, m.price from Medicine m where m.normalizedName in :names order by m.id")
+    List<Object[]> findPricesByNormalizedNameIn(Collection<String> names);
+
+    Optional<Medicine> findByNormalizedName(String normalizedName);
 }
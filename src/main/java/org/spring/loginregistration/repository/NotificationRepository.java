@@ -1,15 +1,60 @@
 package org.spring.loginregistration.repository;
 
+import org.spring.loginregistration.dto.NotificationDTO;
 import org.spring.loginregistration.model.Doctor;
 import org.spring.loginregistration.model.Notification;
 import org.spring.loginregistration.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
-    List<Notification> findByUserOrderByTimestampDesc(User user);
-    List<Notification> findByDoctorOrderByTimestampDesc(Doctor doctor);
-    
+    // Keyset paging on (timestamp, id): first page, then everything strictly older than the cursor
+    @Query("select new org.spring.loginregistration.dto.NotificationDTO(n.id, n.message, n.isRead, n.timestamp) " +
+            "from Notification n where n.user = :user order by n.timestamp desc, n.id desc")
+    List<NotificationDTO> findFeedForUser(User user, Limit limit);
+
+    @Query("select new org.spring.loginregistration.dto.NotificationDTO(n.id, n.message, n.isRead, n.timestamp) " +
+            "from Notification n where n.user = :user " +
+            "and (n.timestamp < :timestamp or (n.timestamp = :timestamp and n.id < :id)) " +
+            "order by n.timestamp desc, n.id desc")
+    List<NotificationDTO> findFeedForUserBefore(User user, LocalDateTime timestamp, Long id, Limit limit);
+
+    @Query("select new org.spring.loginregistration.dto.NotificationDTO(n.id, n.message, n.isRead, n.timestamp) " +
+            "from Notification n where n.doctor = :doctor order by n.timestamp desc, n.id desc")
+    List<NotificationDTO> findFeedForDoctor(Doctor doctor, Limit limit);
+
+    @Query("select new org.spring.loginregistration.dto.NotificationDTO(n.id, n.message, n.isRead, n.timestamp) " +
+            "from Notification n where n.doctor = :doctor " +
+            "and (n.timestamp < :timestamp or (n.timestamp = :timestamp and n.id < :id)) " +
+            "order by n.timestamp desc, n.id desc")
+    List<NotificationDTO> findFeedForDoctorBefore(Doctor doctor, LocalDateTime timestamp, Long id, Limit limit);
+
+
     long countByUserAndIsReadFalse(User user);
     long countByDoctorAndIsReadFalse(Doctor doctor);
+
+    // Set-based: one UPDATE touching only the unread rows
+    @Transactional
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.user = :user and n.isRead = false")
+    int markAllReadForUser(User user);
+
+    @Transactional
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.doctor = :doctor and n.isRead = false")
+    int markAllReadForDoctor(Doctor doctor);
+
+    // Exact unread counts for many recipients at once, used to reconcile the in-memory counters
+    @Query("select n.user.id, count(n) from Notification n where n.isRead = false and n.user.id in :userIds group by n.user.id")
+    List<Object[]> countUnreadByUserIds(Collection<Long> userIds);
+
+    @Query("select n.doctor.doctorId, count(n) from Notification n where n.isRead = false and n.doctor.doctorId in :doctorIds group by n.doctor.doctorId")
+    List<Object[]> countUnreadByDoctorIds(Collection<Long> doctorIds);
 }
@@ -0,0 +1,7 @@
+package org.spring.loginregistration.repository;
+
+import org.spring.loginregistration.model.NotificationUnreadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface NotificationUnreadCounterRepository extends JpaRepository<NotificationUnreadCounter, String> {
+}
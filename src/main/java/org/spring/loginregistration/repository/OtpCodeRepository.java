@@ -0,0 +1,21 @@
+package org.spring.loginregistration.repository;
+
+import jakarta.persistence.LockModeType;
+import org.spring.loginregistration.model.OtpCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.Optional;
+
+public interface OtpCodeRepository extends JpaRepository<OtpCode, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OtpCode o where o.email = :email")
+    Optional<OtpCode> findForUpdate(String email);
+
+    @Modifying
+    @Query("delete from OtpCode o where o.expiresAt <= :now")
+    int deleteExpired(long now);
+}
@@ -1,12 +1,40 @@
 package org.spring.loginregistration.repository;
 
+import org.spring.loginregistration.dto.PharmacyOrderResponse;
 import org.spring.loginregistration.model.PharmacyOrder;
 import org.spring.loginregistration.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface PharmacyOrderRepository extends JpaRepository<PharmacyOrder, Long> {
     // Sort by ID Descending to get latest first
     List<PharmacyOrder> findByUserOrderByIdDesc(User user);
-    List<PharmacyOrder> findAllByOrderByIdDesc();
+
+    // One page of the admin listing, newest first; medicines are filled in by findMedicinesByOrderIds.
+    // Status matches like the lifecycle reads it: any case, and PENDING also takes null and unknown values
+    @Query("select new org.spring.loginregistration.dto.PharmacyOrderResponse(o.id, coalesce(u.username, 'Unknown Patient'), " +
+           "o.totalAmount, o.deliveryAddress, o.status, o.orderDate, o.estimatedTime) " +
+           "from PharmacyOrder o left join o.user u " +
+           "where o.id < :beforeId and (:status is null or upper(trim(o.status)) = :status " +
+           "or (:status = 'PENDING' and (o.status is null or upper(trim(o.status)) not in :statusNames))) " +
+           "and o.orderDate >= :from and o.orderDate < :to order by o.id desc")
+    List<PharmacyOrderResponse> findOrderPage(Long beforeId, String status, Collection<String> statusNames,
+                                              LocalDateTime from, LocalDateTime to, Limit limit);
+
+    // [orderId, medicine] rows for a page of orders
+    @Query("select o.id, m from PharmacyOrder o join o.medicines m where o.id in :orderIds")
+    List<Object[]> findMedicinesByOrderIds(Collection<Long> orderIds);
+
+    // [orderId, userId, status, stockReserved] rows
+    @Query("select o.id, o.user.id, o.status, o.stockReserved from PharmacyOrder o where o.id in :ids")
+    List<Object[]> findStatuses(Collection<Long> ids);
+
+    // [orderDate, deliveryAddress] rows, for delivery time statistics
+    @Query("select o.orderDate, o.deliveryAddress from PharmacyOrder o where o.id in :ids")
+    List<Object[]> findOrderDatesAndAddresses(Collection<Long> ids);
 }
@@ -3,6 +3,7 @@ package org.spring.loginregistration.repository;
 import org.spring.loginregistration.model.Prescription;
 import org.spring.loginregistration.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +11,9 @@ public interface PrescriptionRepository extends JpaRepository<Prescription, Long
     // Sort by ID Descending to get latest first
     List<Prescription> findByUserOrderByIdDesc(User user);
     Optional<Prescription> findTopByUserOrderByIdDesc(User user);
+
+    // Medicines of the user's latest prescription in one query, without loading the entity
+    @Query("select m from Prescription p join p.medicines m " +
+            "where p.id = (select max(p2.id) from Prescription p2 where p2.user.id = :userId)")
+    List<String> findLatestMedicines(Long userId);
 }
@@ -1,8 +1,11 @@
 package org.spring.loginregistration.repository;
 
+import org.spring.loginregistration.dto.UserDTO;
 import org.spring.loginregistration.model.Doctor;
 import org.spring.loginregistration.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,4 +13,19 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     List<User> findByDoctor(Doctor doctor);
     Optional<User> findTopByDoctorOrderByIdDesc(Doctor doctor); // Added missing method
+
+    // [id, username] of a doctor's patients, without loading the entities
+    @Query("select u.id, u.username from User u where u.doctor.doctorId = :doctorId order by u.id")
+    List<Object[]> findPatientNamesByDoctorId(Long doctorId);
+
+    // One page of the admin patient listing in id order, with doctor and profile joined in.
+    // assigned: null = everyone, true = has a doctor, false = has none; disease is a lower-case like pattern
+    @Query("select new org.spring.loginregistration.dto.UserDTO(u.id, u.username, u.email, d.userName, " +
+           "coalesce(p.symptoms, 'Not set'), coalesce(p.knownDisease, 'None')) " +
+           "from User u left join u.doctor d left join UserProfile p on p.user = u " +
+           "where u.id > :afterId " +
+           "and (:assigned is null or (:assigned = true and d.doctorId is not null) or (:assigned = false and d.doctorId is null)) " +
+           "and (:doctorId is null or d.doctorId = :doctorId) " +
+           "and (:disease is null or lower(p.knownDisease) like :disease) order by u.id")
+    List<UserDTO> findUserPage(Long afterId, Boolean assigned, Long doctorId, String disease, Limit limit);
 }
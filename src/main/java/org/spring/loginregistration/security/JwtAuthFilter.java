@@ -16,30 +16,36 @@ import java.util.Collections;
 @Component
 public class JwtAuthFilter extends OncePerRequestFilter {
 
-    private final JwtService jwtService;
+    private static final String STREAM_PATH = "/notifications/stream";
 
-    public JwtAuthFilter(JwtService jwtService) {
-        this.jwtService = jwtService;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public JwtAuthFilter(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
         
+        String token = null;
         String authHeader = request.getHeader("Authorization");
-        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            token = authHeader.substring(7);
+        } else if (STREAM_PATH.equals(request.getRequestURI())) {
+            // Browsers' EventSource cannot set headers, so the SSE endpoint accepts the token as a query param
+            token = request.getParameter("access_token");
+        }
+        if (token == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        String token = authHeader.substring(7);
-        if (jwtService.isTokenValid(token)) {
-            Long userId = jwtService.extractUserId(token);
-            String role = jwtService.extractRole(token); // Extract role from JWT
-
+        JwtPrincipal principal = verifiedTokenCache.resolve(token); // Parsed once, then served from cache
+        if (principal != null) {
             // Set the role as a GrantedAuthority
             UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                    userId, null, Collections.singletonList(new SimpleGrantedAuthority(role))
+                    principal.getId(), null, Collections.singletonList(new SimpleGrantedAuthority(principal.getRole()))
             );
             SecurityContextHolder.getContext().setAuthentication(authToken);
         }
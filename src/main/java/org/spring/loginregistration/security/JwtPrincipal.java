@@ -0,0 +1,15 @@
+package org.spring.loginregistration.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * The verified contents of a JWT: who the caller is, their role and when the token stops being valid.
+ */
+@Getter
+@AllArgsConstructor
+public class JwtPrincipal {
+    private final Long id;
+    private final String role;
+    private final long expiresAt; // epoch millis
+}
@@ -1,6 +1,7 @@
 package org.spring.loginregistration.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -15,9 +16,9 @@ public class JwtService {
     // Using a plain string that is long enough for HS256 (32+ characters)
     private static final String SECRET_STRING = "my-super-secret-key-12345-secure-and-long-enough-for-hs256";
 
-    private Key getSigningKey(){
-        return Keys.hmacShaKeyFor(SECRET_STRING.getBytes());
-    }
+    // The key and parser are immutable and thread-safe, so build them once
+    private final Key signingKey = Keys.hmacShaKeyFor(SECRET_STRING.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
 
     public String generateToken(Long userId, String role){
         return Jwts.builder()
@@ -25,16 +26,31 @@ public class JwtService {
                 .claim("role", role)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     private Claims extractAllClaims(String token){
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * Parses and verifies the token once and returns everything the filter needs,
+     * or null when the token is invalid or expired.
+     */
+    public JwtPrincipal verify(String token){
+        try{
+            Claims claims = extractAllClaims(token);
+            Date expiration = claims.getExpiration();
+            return new JwtPrincipal(
+                    Long.parseLong(claims.getSubject()),
+                    claims.get("role", String.class),
+                    expiration != null ? expiration.getTime() : Long.MAX_VALUE
+            );
+        } catch(Exception e){
+            System.out.println("Token Validation Error: " + e.getMessage());
+            return null;
+        }
     }
 
     public Long extractUserId(String token){
@@ -46,12 +62,6 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token){
-        try{
-            extractAllClaims(token);
-            return true;
-        } catch(Exception e){
-            System.out.println("Token Validation Error: " + e.getMessage());
-            return false;
-        }
+        return verify(token) != null;
     }
 }
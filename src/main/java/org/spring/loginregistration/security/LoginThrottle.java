@@ -0,0 +1,121 @@
+package org.spring.loginregistration.security;
+
+import jakarta.annotation.PreDestroy;
+import org.spring.loginregistration.exception.TooManyRequestsException;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Protects the login endpoints. Attempts are rate limited per email and per client IP, and
+ * BCrypt checks run on a small dedicated pool. When that pool and its short queue are full
+ * the request fails immediately with 429 instead of tying up a Tomcat thread.
+ */
+@Component
+public class LoginThrottle implements StatsProvider {
+
+    private final PasswordEncoder passwordEncoder;
+    private final TokenBucketLimiter emailLimiter;
+    private final TokenBucketLimiter ipLimiter;
+    private final ThreadPoolExecutor verifyExecutor;
+    private final long verifyTimeoutMillis;
+    private final LongAdder shed = new LongAdder();
+
+    public LoginThrottle(PasswordEncoder passwordEncoder,
+                         @Value("${login.throttle.email.capacity:5}") int emailCapacity,
+                         @Value("${login.throttle.email.refill-per-minute:5}") int emailRefill,
+                         @Value("${login.throttle.ip.capacity:20}") int ipCapacity,
+                         @Value("${login.throttle.ip.refill-per-minute:20}") int ipRefill,
+                         @Value("${login.throttle.max-keys:100000}") int maxKeys,
+                         @Value("${login.verify.threads:0}") int threads,
+                         @Value("${login.verify.queue:16}") int queueSize,
+                         @Value("${login.verify.timeout-ms:5000}") long verifyTimeoutMillis) {
+        this.passwordEncoder = passwordEncoder;
+        this.emailLimiter = new TokenBucketLimiter(emailCapacity, emailRefill, maxKeys);
+        this.ipLimiter = new TokenBucketLimiter(ipCapacity, ipRefill, maxKeys);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.verifyExecutor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "login-verify");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.verifyTimeoutMillis = verifyTimeoutMillis;
+    }
+
+    /** Call before looking the account up, so throttled requests cost nothing. */
+    public void checkAttempt(String email, String clientIp) {
+        if (clientIp != null && !ipLimiter.tryAcquire(clientIp)) {
+            throw new TooManyRequestsException("Too many login attempts. Please try again later.");
+        }
+        if (email != null && !emailLimiter.tryAcquire(email.trim().toLowerCase(Locale.ROOT))) {
+            throw new TooManyRequestsException("Too many login attempts. Please try again later.");
+        }
+    }
+
+    public boolean passwordMatches(String rawPassword, String encodedPassword) {
+        Future<Boolean> result;
+        try {
+            result = verifyExecutor.submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+        } catch (RejectedExecutionException e) {
+            shed.increment();
+            throw new TooManyRequestsException("Server is busy. Please try again shortly.");
+        }
+        try {
+            return result.get(verifyTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            shed.increment();
+            throw new TooManyRequestsException("Server is busy. Please try again shortly.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Login interrupted.");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Password check failed.", e.getCause());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${login.throttle.sweep-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        emailLimiter.evictIdle();
+        ipLimiter.evictIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        verifyExecutor.shutdownNow();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "loginThrottle";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("email.keys", (long) emailLimiter.size());
+        stats.put("email.allowed", emailLimiter.getAllowed());
+        stats.put("email.rejected", emailLimiter.getRejected());
+        stats.put("email.evicted", emailLimiter.getEvicted());
+        stats.put("email.evictedActive", emailLimiter.getEvictedActive());
+        stats.put("ip.keys", (long) ipLimiter.size());
+        stats.put("ip.allowed", ipLimiter.getAllowed());
+        stats.put("ip.rejected", ipLimiter.getRejected());
+        stats.put("ip.evicted", ipLimiter.getEvicted());
+        stats.put("ip.evictedActive", ipLimiter.getEvictedActive());
+        stats.put("verify.active", (long) verifyExecutor.getActiveCount());
+        stats.put("verify.queued", (long) verifyExecutor.getQueue().size());
+        stats.put("verify.completed", verifyExecutor.getCompletedTaskCount());
+        stats.put("verify.shed", shed.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,109 @@
+package org.spring.loginregistration.security;
+
+import org.spring.loginregistration.cache.ExpiringCache;
+import org.spring.loginregistration.dto.DoctorSnapshot;
+import org.spring.loginregistration.dto.UserSnapshot;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.Doctor;
+import org.spring.loginregistration.model.User;
+import org.spring.loginregistration.repository.DoctorRepository;
+import org.spring.loginregistration.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Short-lived snapshots of the authenticated user or doctor, so endpoints that only need
+ * the caller's id, name or assigned doctor do not run a findById on every request.
+ *
+ * The *Reference methods return a JPA reference (no SELECT) that can be passed straight
+ * into repository queries such as findByUser. Writers that change what a snapshot holds
+ * must call the matching invalidate method.
+ */
+@Component
+public class PrincipalSnapshotCache implements StatsProvider {
+
+    private final UserRepository userRepository;
+    private final DoctorRepository doctorRepository;
+    private final ExpiringCache<Long, UserSnapshot> users;
+    private final ExpiringCache<Long, DoctorSnapshot> doctors;
+    private final long ttlMillis;
+
+    public PrincipalSnapshotCache(UserRepository userRepository, DoctorRepository doctorRepository,
+                                  @Value("${principal.cache.max-size:10000}") int maxSize,
+                                  @Value("${principal.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.doctorRepository = doctorRepository;
+        this.users = new ExpiringCache<>(maxSize);
+        this.doctors = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    public UserSnapshot getUser(Long userId) {
+        UserSnapshot snapshot = users.getOrLoad(userId,
+                id -> userRepository.findById(id).map(PrincipalSnapshotCache::toSnapshot).orElse(null), ttlMillis);
+        if (snapshot == null) {
+            throw new RuntimeException("User not found");
+        }
+        return snapshot;
+    }
+
+    public DoctorSnapshot getDoctor(Long doctorId) {
+        DoctorSnapshot snapshot = doctors.getOrLoad(doctorId,
+                id -> doctorRepository.findById(id).map(PrincipalSnapshotCache::toSnapshot).orElse(null), ttlMillis);
+        if (snapshot == null) {
+            throw new RuntimeException("Doctor not found");
+        }
+        return snapshot;
+    }
+
+    /** Checks the user exists (via the cache) and returns an uninitialized reference for queries. */
+    public User userReference(Long userId) {
+        getUser(userId);
+        return userRepository.getReferenceById(userId);
+    }
+
+    public Doctor doctorReference(Long doctorId) {
+        getDoctor(doctorId);
+        return doctorRepository.getReferenceById(doctorId);
+    }
+
+    public void invalidateUser(Long userId) {
+        users.remove(userId);
+    }
+
+    public void invalidateDoctor(Long doctorId) {
+        doctors.remove(doctorId);
+    }
+
+    // Only the doctor's id: its name and email live in the doctor snapshot, which
+    // invalidateDoctor evicts, so a renamed doctor is never served from a user snapshot
+    private static UserSnapshot toSnapshot(User user) {
+        Doctor doctor = user.getDoctor();
+        return new UserSnapshot(
+                user.getId(),
+                user.getUsername(),
+                user.getEmail(),
+                doctor != null ? doctor.getDoctorId() : null
+        );
+    }
+
+    private static DoctorSnapshot toSnapshot(Doctor doctor) {
+        return new DoctorSnapshot(doctor.getDoctorId(), doctor.getUserName(), doctor.getEmail());
+    }
+
+    @Override
+    public String getStatsName() {
+        return "principalSnapshots";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        users.getStats().forEach((k, v) -> stats.put("users." + k, v));
+        doctors.getStats().forEach((k, v) -> stats.put("doctors." + k, v));
+        return stats;
+    }
+}
@@ -0,0 +1,160 @@
+package org.spring.loginregistration.security;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-key token buckets. Each bucket is updated with a compare-and-set loop, so callers
+ * never block each other; a stripe of the map is only locked briefly to find or add a bucket.
+ * Buckets that have refilled completely carry no information and are dropped by
+ * {@link #evictIdle()}, which the owner runs on a schedule to keep memory flat between bursts.
+ *
+ * maxKeys bounds the map. Each stripe is kept in access order; when a new key arrives at a
+ * full stripe, a refilled bucket among its oldest few is dropped first (that loses nothing),
+ * else the least recently used one. New keys therefore always get a bucket, and a flood of
+ * distinct keys only pushes out buckets nobody has used lately.
+ */
+public class TokenBucketLimiter {
+
+    private static final int EVICTION_SCAN = 8; // oldest entries checked for an idle bucket
+    private static final int KEYS_PER_STRIPE = 1024;
+
+    private record State(double tokens, long updatedAt) {
+    }
+
+    private final Object[] locks;
+    private final List<LinkedHashMap<String, AtomicReference<State>>> stripes;
+    private final int stripeCapacity;
+    private final double capacity;
+    private final double tokensPerMilli;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder evictedActive = new LongAdder();
+
+    public TokenBucketLimiter(int capacity, int refillPerMinute, int maxKeys) {
+        this.capacity = capacity;
+        this.tokensPerMilli = refillPerMinute / 60_000.0;
+        // Small limits get one exact LRU; large ones up to 64 stripes of about KEYS_PER_STRIPE each
+        int stripeCount = Integer.highestOneBit(Math.max(1, Math.min(64, maxKeys / KEYS_PER_STRIPE)));
+        this.locks = new Object[stripeCount];
+        this.stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            locks[i] = new Object();
+            stripes.add(new LinkedHashMap<>(16, 0.75f, true));
+        }
+        this.stripeCapacity = Math.max(1, maxKeys / stripeCount);
+    }
+
+    private int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (locks.length - 1);
+    }
+
+    public boolean tryAcquire(String key) {
+        AtomicReference<State> bucket = bucket(key);
+        while (true) {
+            State current = bucket.get();
+            long now = System.currentTimeMillis();
+            double tokens = refilled(current, now);
+            if (tokens < 1) {
+                rejected.increment();
+                return false;
+            }
+            if (bucket.compareAndSet(current, new State(tokens - 1, now))) {
+                allowed.increment();
+                return true;
+            }
+        }
+    }
+
+    private AtomicReference<State> bucket(String key) {
+        int s = stripe(key);
+        synchronized (locks[s]) {
+            Map<String, AtomicReference<State>> stripe = stripes.get(s);
+            AtomicReference<State> bucket = stripe.get(key); // also marks it most recently used
+            if (bucket == null) {
+                long now = System.currentTimeMillis();
+                if (stripe.size() >= stripeCapacity) {
+                    evictOne(stripe, now);
+                }
+                bucket = new AtomicReference<>(new State(capacity, now));
+                stripe.put(key, bucket);
+            }
+            return bucket;
+        }
+    }
+
+    // Caller holds the stripe lock; iteration starts at the least recently used entry
+    private void evictOne(Map<String, AtomicReference<State>> stripe, long now) {
+        Iterator<AtomicReference<State>> oldest = stripe.values().iterator();
+        for (int i = 0; i < EVICTION_SCAN && oldest.hasNext(); i++) {
+            if (refilled(oldest.next().get(), now) >= capacity) {
+                oldest.remove();
+                evicted.increment();
+                return;
+            }
+        }
+        Iterator<AtomicReference<State>> lru = stripe.values().iterator();
+        lru.next();
+        lru.remove();
+        evictedActive.increment();
+    }
+
+    /** Drops buckets that are full again, they behave exactly like a missing bucket. */
+    public int evictIdle() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (int s = 0; s < locks.length; s++) {
+            synchronized (locks[s]) {
+                Iterator<AtomicReference<State>> it = stripes.get(s).values().iterator();
+                while (it.hasNext()) {
+                    if (refilled(it.next().get(), now) >= capacity) {
+                        it.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        evicted.add(removed);
+        return removed;
+    }
+
+    private double refilled(State state, long now) {
+        long elapsed = Math.max(0, now - state.updatedAt());
+        return Math.min(capacity, state.tokens() + elapsed * tokensPerMilli);
+    }
+
+    public int size() {
+        int size = 0;
+        for (int s = 0; s < locks.length; s++) {
+            synchronized (locks[s]) {
+                size += stripes.get(s).size();
+            }
+        }
+        return size;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getEvicted() {
+        return evicted.sum();
+    }
+
+    /** Buckets dropped to make room while not yet refilled; their keys start over full. */
+    public long getEvictedActive() {
+        return evictedActive.sum();
+    }
+}
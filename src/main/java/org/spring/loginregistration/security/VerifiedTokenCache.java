@@ -0,0 +1,62 @@
+package org.spring.loginregistration.security;
+
+import org.spring.loginregistration.cache.ExpiringCache;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Remembers tokens that already passed signature verification so repeat requests
+ * with the same bearer token skip the HMAC work. Entries are keyed by a SHA-256
+ * digest of the token (the raw token is never kept) and expire with the token.
+ */
+@Component
+public class VerifiedTokenCache implements StatsProvider {
+
+    private final JwtService jwtService;
+    private final ExpiringCache<String, JwtPrincipal> cache;
+
+    public VerifiedTokenCache(JwtService jwtService, @Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this.jwtService = jwtService;
+        this.cache = new ExpiringCache<>(maxSize);
+    }
+
+    /** Returns the principal for a valid token, or null if the token does not verify. */
+    public JwtPrincipal resolve(String token) {
+        String key = digest(token);
+        JwtPrincipal principal = cache.get(key);
+        if (principal != null) {
+            return principal;
+        }
+        principal = jwtService.verify(token);
+        if (principal != null) {
+            cache.put(key, principal, principal.getExpiresAt());
+        }
+        return principal;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "jwtVerifiedTokens";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        return cache.getStats();
+    }
+}
@@ -0,0 +1,261 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.dto.AdherenceReport;
+import org.spring.loginregistration.dto.AdherenceStat;
+import org.spring.loginregistration.model.AdherenceMonth;
+import org.spring.loginregistration.repository.AdherenceMonthRepository;
+import org.spring.loginregistration.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Medication adherence from per-month bitsets (see AdherenceMonth) instead of scanning one
+ * MedicationTracker row per dose. A range query reads at most one row per medicine per month
+ * and counts doses with Integer.bitCount over the days inside the range.
+ *
+ * Bits are flipped in SQL with plain arithmetic (add or subtract 2^(day-1) when the bit is
+ * not already in the wanted state), so concurrent toggles on the same row stay correct and
+ * the statements run unchanged on PostgreSQL and H2.
+ */
+@Service
+public class AdherenceService {
+
+    private static final String ENSURE_SQL =
+            "INSERT INTO adherence_month (user_id, medicine_name, month_start, scheduled_bits, taken_bits) " +
+            "VALUES (?, ?, ?, 0, 0) ON CONFLICT DO NOTHING";
+    private static final String MARK_SCHEDULED_SQL =
+            "UPDATE adherence_month SET scheduled_bits = scheduled_bits + ? " +
+            "WHERE user_id = ? AND medicine_name = ? AND month_start = ? AND MOD(scheduled_bits / ?, 2) = 0";
+    private static final String UNMARK_SCHEDULED_SQL =
+            "UPDATE adherence_month SET scheduled_bits = scheduled_bits - ? " +
+            "WHERE user_id = ? AND medicine_name = ? AND month_start = ? " +
+            "AND MOD(scheduled_bits / ?, 2) = 1 AND MOD(taken_bits / ?, 2) = 0";
+    private static final String RECORD_DOSE_SQL =
+            "UPDATE adherence_month SET " +
+            "scheduled_bits = scheduled_bits + CASE WHEN MOD(scheduled_bits / ?, 2) = 0 THEN ? ELSE 0 END, " +
+            "taken_bits = taken_bits + CASE WHEN ? AND MOD(taken_bits / ?, 2) = 0 THEN ? " +
+            "WHEN NOT ? AND MOD(taken_bits / ?, 2) = 1 THEN -? ELSE 0 END " +
+            "WHERE user_id = ? AND medicine_name = ? AND month_start = ?";
+    private static final String OVERWRITE_SQL =
+            "UPDATE adherence_month SET scheduled_bits = ?, taken_bits = ? " +
+            "WHERE user_id = ? AND medicine_name = ? AND month_start = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AdherenceMonthRepository adherenceRepository;
+    private final UserRepository userRepository;
+
+    public AdherenceService(JdbcTemplate jdbcTemplate, AdherenceMonthRepository adherenceRepository,
+                            UserRepository userRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.adherenceRepository = adherenceRepository;
+        this.userRepository = userRepository;
+    }
+
+    private record MonthKey(long userId, String medicineName, LocalDate monthStart) {
+    }
+
+    private static int dayBit(LocalDate date) {
+        return 1 << (date.getDayOfMonth() - 1);
+    }
+
+    // ---- maintenance ----
+
+    /** Marks the given tracker rows as scheduled doses; called after they are materialized. */
+    public void recordScheduled(List<TrackerMaterializer.TrackerRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        ensureRows(rows.stream()
+                .map(r -> new MonthKey(r.userId(), r.medicineName(), r.date().withDayOfMonth(1)))
+                .distinct()
+                .toList());
+        jdbcTemplate.batchUpdate(MARK_SCHEDULED_SQL, rows, rows.size(), (ps, row) -> {
+            int bit = dayBit(row.date());
+            ps.setInt(1, bit);
+            ps.setLong(2, row.userId());
+            ps.setString(3, row.medicineName());
+            ps.setDate(4, Date.valueOf(row.date().withDayOfMonth(1)));
+            ps.setInt(5, bit);
+        });
+    }
+
+    /** Clears the scheduled bit of untaken tracker rows that were deleted. */
+    public void unrecordScheduled(List<TrackerMaterializer.TrackerRow> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UNMARK_SCHEDULED_SQL, rows, rows.size(), (ps, row) -> {
+            int bit = dayBit(row.date());
+            ps.setInt(1, bit);
+            ps.setLong(2, row.userId());
+            ps.setString(3, row.medicineName());
+            ps.setDate(4, Date.valueOf(row.date().withDayOfMonth(1)));
+            ps.setInt(5, bit);
+            ps.setInt(6, bit);
+        });
+    }
+
+    /** A dose whose taken/missed state changed. */
+    public record DoseChange(Long userId, String medicineName, LocalDate date, boolean taken) {
+    }
+
+    /** Records the taken/missed state of one dose, e.g. after a toggle. */
+    public void recordDose(Long userId, String medicineName, LocalDate date, boolean taken) {
+        recordDoses(List.of(new DoseChange(userId, medicineName, date, taken)));
+    }
+
+    public void recordDoses(List<DoseChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        ensureRows(changes.stream()
+                .map(c -> new MonthKey(c.userId(), c.medicineName(), c.date().withDayOfMonth(1)))
+                .distinct()
+                .toList());
+        jdbcTemplate.batchUpdate(RECORD_DOSE_SQL, changes, changes.size(), (ps, change) -> {
+            int bit = dayBit(change.date());
+            ps.setInt(1, bit);
+            ps.setInt(2, bit);
+            ps.setBoolean(3, change.taken());
+            ps.setInt(4, bit);
+            ps.setInt(5, bit);
+            ps.setBoolean(6, change.taken());
+            ps.setInt(7, bit);
+            ps.setInt(8, bit);
+            ps.setLong(9, change.userId());
+            ps.setString(10, change.medicineName());
+            ps.setDate(11, Date.valueOf(change.date().withDayOfMonth(1)));
+        });
+    }
+
+    private void ensureRows(List<MonthKey> keys) {
+        jdbcTemplate.batchUpdate(ENSURE_SQL, keys, keys.size(), (ps, key) -> {
+            ps.setLong(1, key.userId());
+            ps.setString(2, key.medicineName());
+            ps.setDate(3, Date.valueOf(key.monthStart()));
+        });
+    }
+
+    // Databases that predate the bitsets get them built once from the tracker history
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (adherenceRepository.count() == 0) {
+            rebuildFromTrackers();
+        }
+    }
+
+    /** Recomputes every bitset from medication_tracker and returns the number of rows written. */
+    public int rebuildFromTrackers() {
+        Map<MonthKey, int[]> bits = new HashMap<>();
+        jdbcTemplate.query("SELECT user_id, medicine_name, date, is_taken FROM medication_tracker " +
+                "WHERE user_id IS NOT NULL AND medicine_name IS NOT NULL AND date IS NOT NULL", rs -> {
+            LocalDate date = rs.getDate(3).toLocalDate();
+            int[] month = bits.computeIfAbsent(
+                    new MonthKey(rs.getLong(1), rs.getString(2), date.withDayOfMonth(1)), k -> new int[2]);
+            month[0] |= dayBit(date);
+            if (rs.getBoolean(4)) {
+                month[1] |= dayBit(date);
+            }
+        });
+        if (bits.isEmpty()) {
+            return 0;
+        }
+        List<MonthKey> keys = new ArrayList<>(bits.keySet());
+        ensureRows(keys);
+        jdbcTemplate.batchUpdate(OVERWRITE_SQL, keys, 500, (ps, key) -> {
+            int[] month = bits.get(key);
+            ps.setInt(1, month[0]);
+            ps.setInt(2, month[1]);
+            ps.setLong(3, key.userId());
+            ps.setString(4, key.medicineName());
+            ps.setDate(5, Date.valueOf(key.monthStart()));
+        });
+        System.out.println("Built adherence bitsets for " + keys.size() + " patient-medicine-months");
+        return keys.size();
+    }
+
+    // ---- queries ----
+
+    public AdherenceReport getPatientReport(Long userId, LocalDate from, LocalDate to) {
+        LocalDate end = clampEnd(to);
+        validateRange(from, end);
+        List<AdherenceMonth> months = adherenceRepository.findByUserIdAndMonthStartBetween(
+                userId, from.withDayOfMonth(1), end.withDayOfMonth(1));
+        return buildReport(userId, null, from, end, months);
+    }
+
+    /** One report per patient assigned to the doctor, from a single bitset query. */
+    public List<AdherenceReport> getDoctorPanelReport(Long doctorId, LocalDate from, LocalDate to) {
+        LocalDate end = clampEnd(to);
+        validateRange(from, end);
+        List<Object[]> patients = userRepository.findPatientNamesByDoctorId(doctorId);
+        if (patients.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = patients.stream().map(row -> (Long) row[0]).toList();
+        Map<Long, List<AdherenceMonth>> byUser = new HashMap<>();
+        for (AdherenceMonth month : adherenceRepository.findByUserIdInAndMonthStartBetween(
+                ids, from.withDayOfMonth(1), end.withDayOfMonth(1))) {
+            byUser.computeIfAbsent(month.getUserId(), k -> new ArrayList<>()).add(month);
+        }
+        List<AdherenceReport> reports = new ArrayList<>();
+        for (Object[] patient : patients) {
+            Long id = (Long) patient[0];
+            reports.add(buildReport(id, (String) patient[1], from, end, byUser.getOrDefault(id, List.of())));
+        }
+        return reports;
+    }
+
+    // Doses after today are scheduled but cannot have been taken yet
+    private LocalDate clampEnd(LocalDate to) {
+        LocalDate today = LocalDate.now();
+        return to == null || to.isAfter(today) ? today : to;
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || from.isAfter(to)) {
+            throw new RuntimeException("Invalid date range");
+        }
+    }
+
+    private AdherenceReport buildReport(Long userId, String username, LocalDate from, LocalDate to,
+                                        List<AdherenceMonth> months) {
+        Map<String, long[]> perMedicine = new TreeMap<>();
+        long scheduled = 0;
+        long taken = 0;
+        for (AdherenceMonth month : months) {
+            int mask = rangeMask(month.getMonthStart(), from, to);
+            long[] totals = perMedicine.computeIfAbsent(month.getMedicineName(), k -> new long[2]);
+            int monthScheduled = Integer.bitCount(month.getScheduledBits() & mask);
+            int monthTaken = Integer.bitCount(month.getTakenBits() & mask);
+            totals[0] += monthScheduled;
+            totals[1] += monthTaken;
+            scheduled += monthScheduled;
+            taken += monthTaken;
+        }
+        List<AdherenceStat> byMedicine = new ArrayList<>();
+        perMedicine.forEach((name, totals) -> byMedicine.add(stat(name, totals[0], totals[1])));
+        return new AdherenceReport(userId, username, from, to, stat(null, scheduled, taken), byMedicine);
+    }
+
+    // Bits for the days of this month that fall inside [from, to]
+    private static int rangeMask(LocalDate monthStart, LocalDate from, LocalDate to) {
+        int firstDay = from.isAfter(monthStart) ? from.getDayOfMonth() : 1;
+        LocalDate monthEnd = monthStart.withDayOfMonth(monthStart.lengthOfMonth());
+        int lastDay = to.isBefore(monthEnd) ? to.getDayOfMonth() : monthEnd.getDayOfMonth();
+        int upTo = (1 << lastDay) - 1; // lastDay = 31 overflows to MIN_VALUE, and MIN_VALUE - 1 is bits 0..30
+        int below = (1 << (firstDay - 1)) - 1;
+        return upTo & ~below;
+    }
+
+    private static AdherenceStat stat(String medicineName, long scheduled, long taken) {
+        double percent = scheduled == 0 ? 0.0 : Math.round(taken * 1000.0 / scheduled) / 10.0;
+        return new AdherenceStat(medicineName, scheduled, taken, percent);
+    }
+}
@@ -1,20 +1,25 @@
 package org.spring.loginregistration.service;
 
+import org.spring.loginregistration.dto.AnalyticsTimeseries;
 import org.spring.loginregistration.dto.DoctorDTO;
 import org.spring.loginregistration.dto.UserDTO;
+import org.spring.loginregistration.dto.UserPage;
 import org.spring.loginregistration.model.*;
 import org.spring.loginregistration.repository.*;
 import org.spring.loginregistration.security.JwtService;
+import org.spring.loginregistration.security.LoginThrottle;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class AdminService {
@@ -25,26 +30,35 @@ public class AdminService {
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
     private final AppointmentRepository appointmentRepository;
-    private final PharmacyOrderRepository orderRepository;
     private final NotificationService notificationService;
-    private final UserProfileRepository userProfileRepository;
-    private final DoctorProfileRepository doctorProfileRepository;
+    private final DoctorDirectory doctorDirectory;
+    private final DailyRollupService rollups;
+    private final PrincipalSnapshotCache principalCache;
+    private final LoginThrottle loginThrottle;
+    private final int defaultUserPageSize;
+    private final int maxUserPageSize;
 
     public AdminService(AdminRepository adminRepository, JwtService jwtService, PasswordEncoder passwordEncoder, 
                         UserRepository userRepository, DoctorRepository doctorRepository, 
-                        AppointmentRepository appointmentRepository, PharmacyOrderRepository orderRepository,
-                        NotificationService notificationService, UserProfileRepository userProfileRepository,
-                        DoctorProfileRepository doctorProfileRepository){
+                        AppointmentRepository appointmentRepository,
+                        NotificationService notificationService,
+                        DoctorDirectory doctorDirectory, PrincipalSnapshotCache principalCache,
+                        LoginThrottle loginThrottle, DailyRollupService rollups,
+                        @Value("${admin.users.page-size:50}") int defaultUserPageSize,
+                        @Value("${admin.users.max-page-size:200}") int maxUserPageSize){
         this.adminRepository = adminRepository;
         this.jwtService = jwtService;
         this.passwordEncoder = passwordEncoder;
         this.userRepository = userRepository;
         this.doctorRepository = doctorRepository;
         this.appointmentRepository = appointmentRepository;
-        this.orderRepository = orderRepository;
         this.notificationService = notificationService;
-        this.userProfileRepository = userProfileRepository;
-        this.doctorProfileRepository = doctorProfileRepository;
+        this.doctorDirectory = doctorDirectory;
+        this.rollups = rollups;
+        this.principalCache = principalCache;
+        this.loginThrottle = loginThrottle;
+        this.defaultUserPageSize = defaultUserPageSize;
+        this.maxUserPageSize = maxUserPageSize;
     }
 
     public void register(String userName, String email, String password){
@@ -59,9 +73,10 @@ public class AdminService {
         adminRepository.save(admin);
     }
 
-    public String login(String email, String password){
+    public String login(String email, String password, String clientIp){
+        loginThrottle.checkAttempt(email, clientIp);
         Admin admin = adminRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("No email found."));
-        if(!passwordEncoder.matches(password, admin.getPassword())){
+        if(!loginThrottle.passwordMatches(password, admin.getPassword())){
             throw new RuntimeException("Password Incorrect.");
         }
         return jwtService.generateToken(admin.getAdminId(), "ADMIN");
@@ -77,58 +92,73 @@ public class AdminService {
 
         user.setDoctor(doctor);
         userRepository.save(user);
+        principalCache.invalidateUser(userId);
         
         notificationService.createNotification(user, "Dr. " + doctor.getUserName() + " has been assigned as your primary doctor.");
         notificationService.createDoctorNotification(doctor, "New patient assigned: " + user.getUsername());
     }
 
+    /**
+     * Every patient, for callers of the old unpaged listing. Walks the pages of getUsers so each
+     * query stays bounded; new screens should page through /admin/users/page instead.
+     */
     public List<UserDTO> getAllUsers() {
-        try {
-            return userRepository.findAll().stream()
-                    .map(u -> {
-                        Optional<UserProfile> profile = userProfileRepository.findByUser(u);
-                        return new UserDTO(
-                            u.getId(), 
-                            u.getUsername(), 
-                            u.getEmail(),
-                            u.getDoctor() != null ? u.getDoctor().getUserName() : null,
-                            profile.isPresent() ? profile.get().getSymptoms() : "Not set",
-                            profile.isPresent() ? profile.get().getKnownDisease() : "None"
-                        );
-                    })
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("❌ Error in getAllUsers: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+        List<UserDTO> users = new ArrayList<>();
+        Long cursor = null;
+        do {
+            UserPage page = getUsers(null, null, cursor, maxUserPageSize);
+            users.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return users;
     }
 
-    public List<DoctorDTO> getAllDoctors() {
-        try {
-            return doctorRepository.findAll().stream()
-                    .map(d -> {
-                        Optional<DoctorProfile> profile = doctorProfileRepository.findById(d.getDoctorId());
-                        return new DoctorDTO(
-                            d.getDoctorId(), 
-                            d.getUserName(), 
-                            d.getEmail(),
-                            profile.isPresent() ? profile.get().getSpecialization() : "General Physician",
-                            profile.isPresent() ? profile.get().getDegreeName() : "MBBS"
-                        );
-                    })
-                    .collect(Collectors.toList());
-        } catch (Exception e) {
-            System.err.println("❌ Error in getAllDoctors: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
+    /**
+     * One page of patients in id order, read with a single query that joins in the assigned doctor
+     * and the profile. doctor filters by assignment: "assigned", "unassigned" or a doctor id;
+     * disease matches the known disease case-insensitively. Pass nextCursor back for the next page.
+     */
+    public UserPage getUsers(String doctor, String disease, Long cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultUserPageSize : Math.min(size, maxUserPageSize);
+        Boolean assigned = null;
+        Long doctorId = null;
+        if (doctor != null && !doctor.isBlank()) {
+            String filter = doctor.trim().toLowerCase();
+            if (filter.equals("assigned")) {
+                assigned = true;
+            } else if (filter.equals("unassigned")) {
+                assigned = false;
+            } else {
+                try {
+                    doctorId = Long.parseLong(filter);
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException("Invalid doctor filter: use assigned, unassigned or a doctor id");
+                }
+            }
         }
+        String diseasePattern = disease == null || disease.isBlank() ? null : "%" + disease.trim().toLowerCase() + "%";
+
+        List<UserDTO> rows = userRepository.findUserPage(cursor != null ? cursor : 0L, assigned, doctorId,
+                diseasePattern, Limit.of(pageSize + 1)); // one extra row tells us whether there is a next page
+        List<UserDTO> items = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        Long nextCursor = rows.size() > pageSize ? items.get(pageSize - 1).getId() : null;
+        return new UserPage(items, nextCursor);
+    }
+
+    /** Served from the in-memory DoctorDirectory; blank filters match every doctor. */
+    public List<DoctorDTO> getAllDoctors(String specialization, String degree) {
+        return doctorDirectory.getDoctors(specialization, degree);
+    }
+
+    public Map<String, Integer> getDoctorSpecializations() {
+        return doctorDirectory.getSpecializations();
     }
     
     public void removeDoctorFromUser(Long userId) {
         User user = userRepository.findById(userId).orElseThrow(() -> new RuntimeException("No user found"));
         user.setDoctor(null);
         userRepository.save(user);
+        principalCache.invalidateUser(userId);
     }
 
     public List<Doctor> getDoctorsWithPatients() {
@@ -139,12 +169,17 @@ public class AdminService {
         return appointmentRepository.findAll();
     }
 
+    /** All-time totals, kept in memory by DailyRollupService. */
     public Map<String, Long> getAnalytics() {
         Map<String, Long> stats = new HashMap<>();
-        stats.put("totalPatients", userRepository.count());
-        stats.put("totalDoctors", doctorRepository.count());
-        stats.put("totalAppointments", appointmentRepository.count());
-        stats.put("totalOrders", orderRepository.count());
+        stats.put("totalPatients", rollups.getTotal(DailyRollupService.SIGNUPS));
+        stats.put("totalDoctors", rollups.getTotal(DailyRollupService.DOCTOR_REGISTRATIONS));
+        stats.put("totalAppointments", rollups.getTotal(DailyRollupService.APPOINTMENTS_BOOKED));
+        stats.put("totalOrders", rollups.getTotal(DailyRollupService.ORDERS_PLACED));
         return stats;
     }
+
+    public AnalyticsTimeseries getAnalyticsTimeseries(Integer days, List<String> metrics) {
+        return rollups.getTimeseries(days, metrics);
+    }
 }
@@ -6,11 +6,13 @@ import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.repository.AppointmentRepository;
 import org.spring.loginregistration.repository.DoctorRepository;
 import org.spring.loginregistration.repository.UserRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Objects;
 
 @Service
 public class AppointmentService {
@@ -19,13 +21,18 @@ public class AppointmentService {
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
     private final NotificationService notificationService;
+    private final PrincipalSnapshotCache principalCache;
+    private final DailyRollupService rollups;
 
     public AppointmentService(AppointmentRepository appointmentRepository, UserRepository userRepository, 
-                              DoctorRepository doctorRepository, NotificationService notificationService) {
+                              DoctorRepository doctorRepository, NotificationService notificationService,
+                              PrincipalSnapshotCache principalCache, DailyRollupService rollups) {
         this.appointmentRepository = appointmentRepository;
         this.userRepository = userRepository;
         this.doctorRepository = doctorRepository;
         this.notificationService = notificationService;
+        this.principalCache = principalCache;
+        this.rollups = rollups;
     }
 
     public Appointment bookAppointment(Long userId, LocalDate date, LocalTime time, String reason) {
@@ -41,6 +48,7 @@ public class AppointmentService {
         appointment.setStatus("PENDING");
 
         Appointment saved = appointmentRepository.save(appointment);
+        rollups.record(DailyRollupService.APPOINTMENTS_BOOKED, saved.getCreatedAt().toLocalDate(), 1);
         
         // Notify Patient
         notificationService.createNotification(user, "Appointment request sent to Dr. " + user.getDoctor().getUserName());
@@ -52,23 +60,28 @@ public class AppointmentService {
     }
 
     public List<Appointment> getPatientAppointments(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow();
+        User user = principalCache.userReference(userId);
         return appointmentRepository.findByUserOrderByIdDesc(user);
     }
 
     public List<Appointment> getDoctorAppointments(Long doctorId) {
-        Doctor doctor = doctorRepository.findById(doctorId).orElseThrow();
+        Doctor doctor = principalCache.doctorReference(doctorId);
         return appointmentRepository.findByDoctorOrderByIdDesc(doctor);
     }
 
     public Appointment updateStatus(Long appointmentId, String status) {
         Appointment appointment = appointmentRepository.findById(appointmentId).orElseThrow();
+        boolean changed = !Objects.equals(appointment.getStatus(), status);
         appointment.setStatus(status);
         
         // Notify Patient
         notificationService.createNotification(appointment.getUser(), 
             "Your appointment on " + appointment.getAppointmentDate() + " is now " + status);
 
-        return appointmentRepository.save(appointment);
+        Appointment saved = appointmentRepository.save(appointment);
+        if (changed) {
+            rollups.record(DailyRollupService.appointmentStatus(status), LocalDate.now(), 1);
+        }
+        return saved;
     }
 }
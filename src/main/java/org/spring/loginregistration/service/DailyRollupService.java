@@ -0,0 +1,309 @@
+package org.spring.loginregistration.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.spring.loginregistration.dto.AnalyticsTimeseries;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.DailyRollup;
+import org.spring.loginregistration.repository.DailyRollupRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Per-day analytics counters (signups, doctor registrations, appointments and orders by status,
+ * revenue) for the admin dashboard, so it never scans the base tables.
+ *
+ * Write paths call record() once their change has committed; the delta is merged into an
+ * in-memory map keyed by (day, metric) and flushed every flush-ms as one batched additive UPDATE
+ * into daily_rollup. A failed flush is retried with the same deltas; shutdown flushes what is
+ * left, so only a crash loses increments (at most flush-ms worth). All-time totals are re-read
+ * from the table on every flush, so they include what other nodes flushed. A status metric
+ * counts transitions into that status.
+ *
+ * The first node to start against an empty table seeds it from the base tables with grouped
+ * queries, before its web server takes requests. The seed is claimed with a job_checkpoint row
+ * in the same transaction, so nodes starting together seed once. History has no transition
+ * times, so seeded status counts sit on the creation day, and rows without a creation time go
+ * to 1970-01-01 (in totals, outside any time series).
+ */
+@Service
+public class DailyRollupService implements StatsProvider {
+
+    public static final String SIGNUPS = "signups";
+    public static final String DOCTOR_REGISTRATIONS = "doctorRegistrations";
+    public static final String APPOINTMENTS_BOOKED = "appointments.booked";
+    public static final String ORDERS_PLACED = "orders.placed";
+    public static final String REVENUE_PAISE = "orders.revenuePaise";
+
+    private static final List<String> CORE_METRICS =
+            List.of(SIGNUPS, DOCTOR_REGISTRATIONS, APPOINTMENTS_BOOKED, ORDERS_PLACED, REVENUE_PAISE);
+    private static final LocalDate UNDATED = LocalDate.EPOCH;
+    private static final Pattern STATUS = Pattern.compile("[A-Z_]{1,24}");
+
+    private static final String ENSURE_SQL =
+            "INSERT INTO daily_rollup (rollup_day, metric, amount) VALUES (?, ?, 0) ON CONFLICT DO NOTHING";
+    private static final String ADD_SQL =
+            "UPDATE daily_rollup SET amount = amount + ? WHERE rollup_day = ? AND metric = ?";
+    private static final String SEED_JOB = "analytics-rollup-seed";
+    private static final String CLAIM_SEED_SQL =
+            "INSERT INTO job_checkpoint (job_name, completed, updated_at) VALUES (?, TRUE, ?) ON CONFLICT DO NOTHING";
+
+    private record Key(LocalDate day, String metric) {
+    }
+
+    private final DailyRollupRepository rollupRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int defaultDays;
+    private final int maxDays;
+
+    private final ConcurrentHashMap<Key, Long> pending = new ConcurrentHashMap<>();
+    private Map<String, Long> flushedTotals = new HashMap<>(); // guarded by this
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder failedFlushes = new LongAdder();
+    private final LongAdder seededRows = new LongAdder();
+
+    public DailyRollupService(DailyRollupRepository rollupRepository, JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${analytics.timeseries.default-days:30}") int defaultDays,
+                              @Value("${analytics.timeseries.max-days:366}") int maxDays) {
+        this.rollupRepository = rollupRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.defaultDays = defaultDays;
+        this.maxDays = maxDays;
+    }
+
+    public static String appointmentStatus(String status) {
+        return "appointments." + statusName(status);
+    }
+
+    public static String orderStatus(String status) {
+        return "orders." + statusName(status);
+    }
+
+    // Appointment statuses come straight from clients, so keep the metric set bounded
+    private static String statusName(String status) {
+        String name = status == null ? "" : status.trim().toUpperCase(Locale.ROOT);
+        return STATUS.matcher(name).matches() ? name : "OTHER";
+    }
+
+    /** Adds delta to the metric for the day; inside a transaction it waits for the commit. */
+    public void record(String metric, LocalDate day, long delta) {
+        if (delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(new Key(day, metric), delta);
+                }
+            });
+            return;
+        }
+        add(new Key(day, metric), delta);
+    }
+
+    private void add(Key key, long delta) {
+        pending.merge(key, delta, Long::sum);
+        recorded.increment();
+    }
+
+    /** All-time value of a metric, including increments not flushed yet. */
+    public long getTotal(String metric) {
+        long total;
+        synchronized (this) {
+            total = flushedTotals.getOrDefault(metric, 0L);
+        }
+        for (Map.Entry<Key, Long> entry : pending.entrySet()) {
+            if (entry.getKey().metric().equals(metric)) {
+                total += entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Daily values for the last days days (today included), read from the rollup table plus the
+     * unflushed increments. Without a metric list, every metric seen in the range is returned.
+     */
+    public AnalyticsTimeseries getTimeseries(Integer days, Collection<String> metrics) {
+        int count = days == null || days <= 0 ? defaultDays : Math.min(days, maxDays);
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(count - 1);
+        List<LocalDate> dayList = from.datesUntil(to.plusDays(1)).toList();
+
+        boolean allMetrics = metrics == null || metrics.isEmpty();
+        Map<String, long[]> values = new TreeMap<>();
+        (allMetrics ? CORE_METRICS : metrics).forEach(metric -> values.put(metric, new long[count]));
+        synchronized (this) {
+            // Under the flush lock, so an increment is never in both (or neither) of the two sources
+            for (DailyRollup row : rollupRepository.findByDayBetween(from, to)) {
+                accumulate(values, allMetrics, row.getMetric(), dayIndex(from, row.getDay()), row.getAmount(), count);
+            }
+            pending.forEach((key, delta) ->
+                    accumulate(values, allMetrics, key.metric(), dayIndex(from, key.day()), delta, count));
+        }
+
+        Map<String, List<Long>> series = new LinkedHashMap<>();
+        values.forEach((metric, daily) -> series.put(metric, Arrays.stream(daily).boxed().toList()));
+        return new AnalyticsTimeseries(dayList, series);
+    }
+
+    private static int dayIndex(LocalDate from, LocalDate day) {
+        return (int) (day.toEpochDay() - from.toEpochDay());
+    }
+
+    private static void accumulate(Map<String, long[]> values, boolean allMetrics, String metric,
+                                   int index, long amount, int count) {
+        if (index < 0 || index >= count) {
+            return;
+        }
+        long[] daily = allMetrics ? values.computeIfAbsent(metric, m -> new long[count]) : values.get(metric);
+        if (daily != null) {
+            daily[index] += amount;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.rollup.flush-ms:10000}", initialDelayString = "${analytics.rollup.flush-ms:10000}")
+    @PreDestroy
+    public synchronized void flush() {
+        // remove() is atomic against merge(), so an increment lands either in this batch or the next
+        Map<Key, Long> batch = new HashMap<>();
+        for (Key key : new ArrayList<>(pending.keySet())) {
+            Long delta = pending.remove(key);
+            if (delta != null && delta != 0) {
+                batch.put(key, delta);
+            }
+        }
+        if (!batch.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> write(batch));
+            } catch (RuntimeException e) {
+                // Nothing was written; put the deltas back for the next run
+                batch.forEach((key, delta) -> pending.merge(key, delta, Long::sum));
+                failedFlushes.increment();
+                System.err.println("Failed to flush analytics rollups: " + e.getMessage());
+                return;
+            }
+            batch.forEach((key, delta) -> flushedTotals.merge(key.metric(), delta, Long::sum));
+            flushedRows.add(batch.size());
+        }
+        try {
+            loadTotals();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to refresh analytics totals: " + e.getMessage());
+        }
+    }
+
+    private void write(Map<Key, Long> amounts) {
+        List<Map.Entry<Key, Long>> rows = new ArrayList<>(amounts.entrySet());
+        jdbcTemplate.batchUpdate(ENSURE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setDate(1, Date.valueOf(row.getKey().day()));
+            ps.setString(2, row.getKey().metric());
+        });
+        jdbcTemplate.batchUpdate(ADD_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.getValue());
+            ps.setDate(2, Date.valueOf(row.getKey().day()));
+            ps.setString(3, row.getKey().metric());
+        });
+    }
+
+    private void loadTotals() {
+        Map<String, Long> totals = new HashMap<>();
+        for (Object[] row : rollupRepository.sumByMetric()) {
+            totals.put((String) row[0], ((Number) row[1]).longValue());
+        }
+        flushedTotals = totals;
+    }
+
+    // Runs before the web server starts, so nothing is recorded while the base tables are read
+    @PostConstruct
+    public synchronized void seedAndLoad() {
+        Integer seeded = transactionTemplate.execute(tx -> {
+            // A node starting concurrently blocks on this key until we commit, then skips
+            if (jdbcTemplate.update(CLAIM_SEED_SQL, SEED_JOB, Timestamp.valueOf(LocalDateTime.now())) == 0) {
+                return null;
+            }
+            // Rollups that predate the checkpoint were seeded by an earlier version
+            return rollupRepository.count() == 0 ? seed() : null;
+        });
+        if (seeded != null) {
+            seededRows.add(seeded);
+            System.out.println("Seeded " + seeded + " analytics rollups from existing data");
+        }
+        loadTotals();
+        System.out.println("Loaded analytics totals for " + flushedTotals.size() + " metrics");
+    }
+
+    private int seed() {
+        Map<Key, Long> seeded = new HashMap<>();
+        jdbcTemplate.query("SELECT CAST(created_at AS DATE), COUNT(*) FROM users GROUP BY CAST(created_at AS DATE)",
+                rs -> {
+                    seeded.merge(new Key(day(rs.getDate(1)), SIGNUPS), rs.getLong(2), Long::sum);
+                });
+        jdbcTemplate.query("SELECT CAST(created_at AS DATE), COUNT(*) FROM doctors GROUP BY CAST(created_at AS DATE)",
+                rs -> {
+                    seeded.merge(new Key(day(rs.getDate(1)), DOCTOR_REGISTRATIONS), rs.getLong(2), Long::sum);
+                });
+        jdbcTemplate.query("SELECT CAST(created_at AS DATE), status, COUNT(*) FROM appointment " +
+                "GROUP BY CAST(created_at AS DATE), status", rs -> {
+            LocalDate day = day(rs.getDate(1));
+            String status = rs.getString(2);
+            seeded.merge(new Key(day, APPOINTMENTS_BOOKED), rs.getLong(3), Long::sum);
+            if (status != null && !"PENDING".equals(status)) {
+                seeded.merge(new Key(day, appointmentStatus(status)), rs.getLong(3), Long::sum);
+            }
+        });
+        jdbcTemplate.query("SELECT CAST(order_date AS DATE), status, COUNT(*), SUM(total_amount) FROM pharmacy_order " +
+                "GROUP BY CAST(order_date AS DATE), status", rs -> {
+            LocalDate day = day(rs.getDate(1));
+            String status = rs.getString(2);
+            seeded.merge(new Key(day, ORDERS_PLACED), rs.getLong(3), Long::sum);
+            seeded.merge(new Key(day, REVENUE_PAISE), Math.round(rs.getDouble(4) * 100), Long::sum);
+            if (status != null && !"PENDING".equals(status)) {
+                seeded.merge(new Key(day, orderStatus(status)), rs.getLong(3), Long::sum);
+            }
+        });
+        seeded.values().removeIf(amount -> amount == 0);
+        write(seeded);
+        return seeded.size();
+    }
+
+    private static LocalDate day(Date date) {
+        return date == null ? UNDATED : date.toLocalDate();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "analyticsRollups";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("pendingKeys", (long) pending.size());
+        stats.put("recorded", recorded.sum());
+        stats.put("flushedRows", flushedRows.sum());
+        stats.put("failedFlushes", failedFlushes.sum());
+        stats.put("seededRows", seededRows.sum());
+        return stats;
+    }
+}
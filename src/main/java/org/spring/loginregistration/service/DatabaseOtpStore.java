@@ -0,0 +1,91 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.model.OtpCode;
+import org.spring.loginregistration.repository.OtpCodeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * OTP store backed by the otp_code table, so an OTP requested on one node can be verified
+ * on any other node behind the load balancer. Verification takes a row lock to keep the
+ * attempt counter exact.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "jdbc")
+public class DatabaseOtpStore implements OtpStore {
+
+    private final OtpCodeRepository otpCodeRepository;
+
+    public DatabaseOtpStore(OtpCodeRepository otpCodeRepository) {
+        this.otpCodeRepository = otpCodeRepository;
+    }
+
+    @Override
+    @Transactional
+    public boolean save(String email, String otp, long expiresAt) {
+        Optional<OtpCode> existing = otpCodeRepository.findForUpdate(email);
+        long now = System.currentTimeMillis();
+        if (existing.isPresent() && existing.get().getLockedUntil() > now) {
+            return false;
+        }
+        OtpCode code = existing.orElseGet(OtpCode::new);
+        // Guesses against an unexpired previous code still count toward the lockout
+        int attempts = existing.isPresent() && existing.get().getExpiresAt() > now ? code.getAttempts() : 0;
+        code.setEmail(email);
+        code.setOtp(otp);
+        code.setExpiresAt(expiresAt);
+        code.setAttempts(attempts);
+        code.setLockedUntil(0);
+        otpCodeRepository.save(code);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public Result verify(String email, String otp, int maxAttempts, long lockMillis) {
+        Optional<OtpCode> found = otpCodeRepository.findForUpdate(email);
+        if (found.isEmpty()) {
+            return Result.INVALID;
+        }
+        OtpCode code = found.get();
+        long now = System.currentTimeMillis();
+        if (code.getLockedUntil() > now) {
+            return Result.LOCKED;
+        }
+        if (code.getExpiresAt() <= now) {
+            otpCodeRepository.delete(code);
+            return Result.INVALID;
+        }
+        if (InMemoryOtpStore.matches(code.getOtp(), otp)) {
+            return Result.VALID;
+        }
+        code.setAttempts(code.getAttempts() + 1);
+        if (code.getAttempts() >= maxAttempts) {
+            code.setOtp(null);
+            code.setLockedUntil(now + lockMillis);
+            code.setExpiresAt(now + lockMillis);
+            return Result.LOCKED;
+        }
+        return Result.INVALID;
+    }
+
+    @Override
+    @Transactional
+    public void remove(String email) {
+        otpCodeRepository.deleteById(email);
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired() {
+        return otpCodeRepository.deleteExpired(System.currentTimeMillis());
+    }
+
+    @Override
+    public long size() {
+        return otpCodeRepository.count();
+    }
+}
@@ -0,0 +1,323 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.DeliveryEtaSketch;
+import org.spring.loginregistration.repository.DeliveryEtaSketchRepository;
+import org.spring.loginregistration.repository.PharmacyOrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Delivery time estimates learned from delivered orders. Every order that reaches DELIVERED adds
+ * its order-to-delivery time to three histograms: (hour of day ordered, delivery area),
+ * (hour, all areas) and (all hours, all areas). An estimate reads p50 and p90 from the most
+ * specific histogram with at least min-samples deliveries.
+ *
+ * Histograms have fixed log-spaced buckets (about 10% wide, 5 minutes to a week), so each is
+ * a constant 84 counters and a quantile is one pass over them. The area is the PIN code in the
+ * address, else its last comma-separated part; past max-areas new areas are folded into one.
+ * Histograms that changed are written to delivery_eta_sketch every persist-ms and loaded back
+ * on startup. Nodes share those rows, so a write adds this node's new samples to the locked row
+ * instead of replacing it, and folds in what other nodes added since this node last saw it.
+ */
+@Service
+public class DeliveryEtaService implements StatsProvider {
+
+    static final int ALL_HOURS = -1;
+    static final String ALL_AREAS = "*";
+    private static final String OTHER_AREA = "other";
+
+    private static final int BUCKETS = 84;
+    private static final double MIN_MINUTES = 5;
+    private static final double GROWTH = 1.1;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    private static final Pattern PIN_CODE = Pattern.compile("\\b(\\d{6})\\b");
+    private static final int MAX_AREA_LENGTH = 64;
+
+    private static final String ENSURE_SQL = "INSERT INTO delivery_eta_sketch (sketch_key, hour_of_day, area, counts, total, updated_at) " +
+            "VALUES (?, ?, ?, ?, 0, ?) ON CONFLICT DO NOTHING";
+    private static final String LOCK_SQL = "SELECT counts FROM delivery_eta_sketch WHERE sketch_key = ? FOR UPDATE";
+    private static final String UPDATE_SQL = "UPDATE delivery_eta_sketch SET counts = ?, total = ?, updated_at = ? WHERE sketch_key = ?";
+
+    private static final class Sketch {
+        final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        final AtomicLongArray unsaved = new AtomicLongArray(BUCKETS); // samples not in the stored row yet
+        final LongAdder total = new LongAdder();
+        final AtomicBoolean dirty = new AtomicBoolean();
+        long[] stored = new long[BUCKETS]; // the row as this node last read or wrote it; persist thread only
+
+        void add(double minutes) {
+            int bucket = bucket(minutes);
+            counts.incrementAndGet(bucket);
+            unsaved.incrementAndGet(bucket);
+            total.increment();
+            dirty.set(true);
+        }
+
+        // Upper edge of the bucket holding the q-th sample; a slight overestimate, which suits an ETA
+        double quantile(double q) {
+            long rank = (long) Math.ceil(q * total.sum());
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts.get(i);
+                if (seen >= rank) {
+                    return upperEdge(i);
+                }
+            }
+            return upperEdge(BUCKETS - 1);
+        }
+    }
+
+    private final DeliveryEtaSketchRepository sketchRepository;
+    private final PharmacyOrderRepository orderRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long minSamples;
+    private final int maxAreas;
+    private final String defaultEstimate;
+
+    private final Map<String, Sketch> sketches = new ConcurrentHashMap<>();
+    private final Set<String> areas = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder estimates = new LongAdder();
+    private final LongAdder defaultEstimates = new LongAdder();
+    private final LongAdder deliveriesRecorded = new LongAdder();
+
+    public DeliveryEtaService(DeliveryEtaSketchRepository sketchRepository, PharmacyOrderRepository orderRepository,
+                              JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              @Value("${delivery.eta.min-samples:20}") long minSamples,
+                              @Value("${delivery.eta.max-areas:200}") int maxAreas,
+                              @Value("${delivery.eta.default:2-4 Hours}") String defaultEstimate) {
+        this.sketchRepository = sketchRepository;
+        this.orderRepository = orderRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.minSamples = minSamples;
+        this.maxAreas = maxAreas;
+        this.defaultEstimate = defaultEstimate;
+    }
+
+    /** "p50-p90" delivery window for an order placed now, e.g. "2-4 Hours" or "40-75 Minutes". */
+    public String estimate(String address, LocalDateTime orderTime) {
+        estimates.increment();
+        int hour = orderTime.getHour();
+        for (String key : List.of(key(hour, area(address, false)), key(hour, ALL_AREAS), key(ALL_HOURS, ALL_AREAS))) {
+            Sketch sketch = sketches.get(key);
+            if (sketch != null && sketch.total.sum() >= minSamples) {
+                return format(sketch.quantile(0.5), sketch.quantile(0.9));
+            }
+        }
+        defaultEstimates.increment();
+        return defaultEstimate;
+    }
+
+    public void recordDelivery(String address, LocalDateTime orderTime, LocalDateTime deliveredAt) {
+        if (orderTime == null || deliveredAt == null || deliveredAt.isBefore(orderTime)) {
+            return;
+        }
+        double minutes = Duration.between(orderTime, deliveredAt).toSeconds() / 60.0;
+        int hour = orderTime.getHour();
+        sketch(key(hour, area(address, true))).add(minutes);
+        sketch(key(hour, ALL_AREAS)).add(minutes);
+        sketch(key(ALL_HOURS, ALL_AREAS)).add(minutes);
+        deliveriesRecorded.increment();
+    }
+
+    /** Records orders that were just marked delivered; called after the status change commits. */
+    public void recordDelivered(List<Long> orderIds, LocalDateTime deliveredAt) {
+        for (Object[] row : orderRepository.findOrderDatesAndAddresses(orderIds)) {
+            recordDelivery((String) row[1], (LocalDateTime) row[0], deliveredAt);
+        }
+    }
+
+    private Sketch sketch(String key) {
+        return sketches.computeIfAbsent(key, k -> new Sketch());
+    }
+
+    // Only recording may claim a slot for a new area; estimates for unseen areas just miss
+    String area(String address, boolean register) {
+        if (address == null || address.isBlank()) {
+            return OTHER_AREA;
+        }
+        Matcher pin = PIN_CODE.matcher(address);
+        String area;
+        if (pin.find()) {
+            area = pin.group(1);
+        } else {
+            String[] parts = address.split(",");
+            area = MedicineCatalog.normalize(parts[parts.length - 1]);
+        }
+        if (area.isEmpty() || area.length() > MAX_AREA_LENGTH) {
+            return OTHER_AREA;
+        }
+        if (areas.contains(area) || !register) {
+            return area;
+        }
+        // Not atomic with the size check, so the cap can be overshot by a few concurrent new areas
+        if (areas.size() >= maxAreas) {
+            return OTHER_AREA;
+        }
+        areas.add(area);
+        return area;
+    }
+
+    private static String key(int hour, String area) {
+        return hour + "|" + area;
+    }
+
+    static int bucket(double minutes) {
+        if (minutes < MIN_MINUTES) {
+            return 0;
+        }
+        int bucket = 1 + (int) (Math.log(minutes / MIN_MINUTES) / LOG_GROWTH);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    static double upperEdge(int bucket) {
+        return MIN_MINUTES * Math.pow(GROWTH, bucket);
+    }
+
+    static String format(double p50Minutes, double p90Minutes) {
+        if (p90Minutes < 90) {
+            long low = Math.max(5, Math.round(p50Minutes / 5) * 5);
+            long high = Math.max(low + 5, Math.round(p90Minutes / 5) * 5);
+            return low + "-" + high + " Minutes";
+        }
+        long low = Math.max(1, (long) Math.floor(p50Minutes / 60));
+        long high = Math.max(low + 1, (long) Math.ceil(p90Minutes / 60));
+        return low + "-" + high + " Hours";
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSketches() {
+        for (DeliveryEtaSketch stored : sketchRepository.findAll()) {
+            Sketch sketch = new Sketch();
+            sketch.stored = parseCounts(stored.getCounts());
+            for (int i = 0; i < BUCKETS; i++) {
+                sketch.counts.set(i, sketch.stored[i]);
+                sketch.total.add(sketch.stored[i]);
+            }
+            sketches.put(stored.getSketchKey(), sketch);
+            if (!ALL_AREAS.equals(stored.getArea()) && !OTHER_AREA.equals(stored.getArea())) {
+                areas.add(stored.getArea());
+            }
+        }
+        System.out.println("Loaded " + sketches.size() + " delivery ETA histograms");
+    }
+
+    @Scheduled(fixedDelayString = "${delivery.eta.persist-ms:60000}", initialDelayString = "${delivery.eta.persist-ms:60000}")
+    public void persistSketches() {
+        // Sorted, so two nodes writing the same histograms lock their rows in the same order
+        Map<String, long[]> deltas = new TreeMap<>();
+        sketches.forEach((key, sketch) -> {
+            if (!sketch.dirty.getAndSet(false)) {
+                return;
+            }
+            long[] delta = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                delta[i] = sketch.unsaved.getAndSet(i, 0);
+            }
+            deltas.put(key, delta);
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Map<String, long[]> written;
+        try {
+            written = transactionTemplate.execute(tx -> {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                Map<String, long[]> rows = new HashMap<>();
+                deltas.forEach((key, delta) -> {
+                    int separator = key.indexOf('|');
+                    jdbcTemplate.update(ENSURE_SQL, key, Integer.parseInt(key.substring(0, separator)),
+                            key.substring(separator + 1), joinCounts(new long[BUCKETS]), now);
+                    long[] row = parseCounts(jdbcTemplate.queryForObject(LOCK_SQL, String.class, key));
+                    long total = 0;
+                    for (int i = 0; i < BUCKETS; i++) {
+                        row[i] += delta[i];
+                        total += row[i];
+                    }
+                    jdbcTemplate.update(UPDATE_SQL, joinCounts(row), total, now, key);
+                    rows.put(key, row);
+                });
+                return rows;
+            });
+        } catch (RuntimeException e) {
+            // Nothing was written; keep the samples for the next run
+            deltas.forEach((key, delta) -> {
+                Sketch sketch = sketches.get(key);
+                for (int i = 0; i < BUCKETS; i++) {
+                    sketch.unsaved.addAndGet(i, delta[i]);
+                }
+                sketch.dirty.set(true);
+            });
+            System.err.println("Failed to persist delivery ETA histograms: " + e.getMessage());
+            return;
+        }
+        // Whatever the row gained besides our delta came from other nodes
+        written.forEach((key, row) -> {
+            Sketch sketch = sketches.get(key);
+            long[] delta = deltas.get(key);
+            for (int i = 0; i < BUCKETS; i++) {
+                long others = row[i] - delta[i] - sketch.stored[i];
+                if (others != 0) {
+                    sketch.counts.addAndGet(i, others);
+                    sketch.total.add(others);
+                }
+            }
+            sketch.stored = row;
+        });
+    }
+
+    private static long[] parseCounts(String csv) {
+        long[] counts = new long[BUCKETS];
+        if (csv == null || csv.isEmpty()) {
+            return counts;
+        }
+        String[] parts = csv.split(",");
+        for (int i = 0; i < Math.min(parts.length, BUCKETS); i++) {
+            counts[i] = Long.parseLong(parts[i]);
+        }
+        return counts;
+    }
+
+    private static String joinCounts(long[] counts) {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < BUCKETS; i++) {
+            csv.append(i == 0 ? "" : ",").append(counts[i]);
+        }
+        return csv.toString();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "deliveryEta";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("histograms", (long) sketches.size());
+        stats.put("areas", (long) areas.size());
+        stats.put("estimates", estimates.sum());
+        stats.put("defaultEstimates", defaultEstimates.sum());
+        stats.put("deliveriesRecorded", deliveriesRecorded.sum());
+        return stats;
+    }
+}
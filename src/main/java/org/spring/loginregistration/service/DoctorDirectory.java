@@ -0,0 +1,150 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.dto.DoctorDTO;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.repository.DoctorRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory doctor directory for the admin listing and the assignment flow. Reads use an
+ * immutable snapshot of every doctor, indexed by specialization and by degree (matched like
+ * medicine names: case-insensitive, whitespace collapsed), so listing never touches the database.
+ *
+ * The snapshot is built from one doctor/profile join. Registering a doctor or saving a profile
+ * calls invalidate(), and the next read rebuilds it. A rebuild that overlaps an invalidation is
+ * served to its caller but not kept, so a stale snapshot is never installed. Invalidation is
+ * local to this node, so the snapshot is also rebuilt every refresh-ms to pick up changes
+ * made through other nodes.
+ */
+@Service
+public class DoctorDirectory implements StatsProvider {
+
+    private record Snapshot(List<DoctorDTO> all, Map<String, List<DoctorDTO>> bySpecialization,
+                            Map<String, List<DoctorDTO>> byDegree, long generation) {
+    }
+
+    private final DoctorRepository doctorRepository;
+    private final String defaultSpecialization;
+    private final String defaultDegree;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DoctorDirectory(DoctorRepository doctorRepository,
+                           @Value("${doctor.directory.default-specialization:General Physician}") String defaultSpecialization,
+                           @Value("${doctor.directory.default-degree:MBBS}") String defaultDegree) {
+        this.doctorRepository = doctorRepository;
+        this.defaultSpecialization = defaultSpecialization;
+        this.defaultDegree = defaultDegree;
+    }
+
+    /** Doctors in id order; blank filters match everyone. */
+    public List<DoctorDTO> getDoctors(String specialization, String degree) {
+        reads.increment();
+        Snapshot current = current();
+        boolean bySpecialization = specialization != null && !specialization.isBlank();
+        boolean byDegree = degree != null && !degree.isBlank();
+        if (!bySpecialization && !byDegree) {
+            return current.all();
+        }
+        if (!byDegree) {
+            return current.bySpecialization().getOrDefault(MedicineCatalog.normalize(specialization), List.of());
+        }
+        List<DoctorDTO> withDegree = current.byDegree().getOrDefault(MedicineCatalog.normalize(degree), List.of());
+        if (!bySpecialization) {
+            return withDegree;
+        }
+        String key = MedicineCatalog.normalize(specialization);
+        return withDegree.stream()
+                .filter(d -> MedicineCatalog.normalize(d.getSpecialization()).equals(key))
+                .toList();
+    }
+
+    /** Distinct specializations (as first written) with the number of doctors in each. */
+    public Map<String, Integer> getSpecializations() {
+        Map<String, Integer> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        current().bySpecialization().values()
+                .forEach(doctors -> counts.put(doctors.get(0).getSpecialization(), doctors.size()));
+        return counts;
+    }
+
+    @Scheduled(fixedDelayString = "${doctor.directory.refresh-ms:300000}", initialDelayString = "${doctor.directory.refresh-ms:300000}")
+    public void scheduledRefresh() {
+        generation.incrementAndGet();
+        current();
+    }
+
+    public void invalidate() {
+        invalidations.increment();
+        generation.incrementAndGet();
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null && current.generation() == generation.get()) {
+            return current;
+        }
+        synchronized (this) {
+            current = snapshot;
+            long wanted = generation.get();
+            if (current != null && current.generation() == wanted) {
+                return current;
+            }
+            Snapshot rebuilt = build(wanted);
+            if (generation.get() == wanted) {
+                snapshot = rebuilt;
+            }
+            return rebuilt;
+        }
+    }
+
+    private Snapshot build(long forGeneration) {
+        rebuilds.increment();
+        List<DoctorDTO> all = new ArrayList<>();
+        Map<String, List<DoctorDTO>> bySpecialization = new HashMap<>();
+        Map<String, List<DoctorDTO>> byDegree = new HashMap<>();
+        for (DoctorDTO row : doctorRepository.findDirectoryEntries()) {
+            String specialization = orDefault(row.getSpecialization(), defaultSpecialization);
+            String degree = orDefault(row.getDegreeName(), defaultDegree);
+            DoctorDTO doctor = new DoctorDTO(row.getDoctorId(), row.getUserName(), row.getEmail(), specialization, degree);
+            all.add(doctor);
+            bySpecialization.computeIfAbsent(MedicineCatalog.normalize(specialization), k -> new ArrayList<>()).add(doctor);
+            byDegree.computeIfAbsent(MedicineCatalog.normalize(degree), k -> new ArrayList<>()).add(doctor);
+        }
+        bySpecialization.replaceAll((k, doctors) -> List.copyOf(doctors));
+        byDegree.replaceAll((k, doctors) -> List.copyOf(doctors));
+        return new Snapshot(List.copyOf(all), Map.copyOf(bySpecialization), Map.copyOf(byDegree), forGeneration);
+    }
+
+    // Doctors without a profile, or with the field left blank, are listed under the default
+    private static String orDefault(String value, String fallback) {
+        return value == null || value.isBlank() ? fallback : value.trim();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "doctorDirectory";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("doctors", current == null ? 0L : current.all().size());
+        stats.put("specializations", current == null ? 0L : current.bySpecialization().size());
+        stats.put("reads", reads.sum());
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+}
@@ -4,6 +4,7 @@ import org.spring.loginregistration.model.Doctor;
 import org.spring.loginregistration.model.DoctorProfile;
 import org.spring.loginregistration.repository.DoctorProfileRepository;
 import org.spring.loginregistration.repository.DoctorRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -12,10 +13,15 @@ import org.springframework.web.server.ResponseStatusException;
 public class DoctorProfileService {
     private final DoctorProfileRepository doctorProfileRepository;
     private final DoctorRepository doctorRepository;
+    private final PrincipalSnapshotCache principalCache;
+    private final DoctorDirectory doctorDirectory;
 
-    public DoctorProfileService(DoctorProfileRepository doctorProfileRepository, DoctorRepository doctorRepository){
+    public DoctorProfileService(DoctorProfileRepository doctorProfileRepository, DoctorRepository doctorRepository,
+                                PrincipalSnapshotCache principalCache, DoctorDirectory doctorDirectory){
         this.doctorProfileRepository = doctorProfileRepository;
         this.doctorRepository = doctorRepository;
+        this.principalCache = principalCache;
+        this.doctorDirectory = doctorDirectory;
     }
 
     public DoctorProfile saveOrUpdateProfile(Long doctorId, DoctorProfile newProfile){
@@ -37,7 +43,10 @@ public class DoctorProfileService {
         existingProfile.setProfilePhotoUrl(newProfile.getProfilePhotoUrl());
         existingProfile.setDegreePhotoUrl(newProfile.getDegreePhotoUrl());
 
-        return doctorProfileRepository.save(existingProfile);
+        DoctorProfile saved = doctorProfileRepository.save(existingProfile);
+        principalCache.invalidateDoctor(doctorId);
+        doctorDirectory.invalidate();
+        return saved;
     }
 
     public DoctorProfile getProfile(Long doctorId){
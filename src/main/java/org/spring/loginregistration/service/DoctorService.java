@@ -8,6 +8,7 @@ import org.spring.loginregistration.repository.DoctorRepository;
 import org.spring.loginregistration.repository.UserProfileRepository;
 import org.spring.loginregistration.repository.UserRepository;
 import org.spring.loginregistration.security.JwtService;
+import org.spring.loginregistration.security.LoginThrottle;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -23,13 +24,20 @@ public class DoctorService {
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final UserProfileRepository userProfileRepository;
+    private final LoginThrottle loginThrottle;
+    private final DoctorDirectory doctorDirectory;
+    private final DailyRollupService rollups;
 
-    public DoctorService(DoctorRepository doctorRepository, PasswordEncoder passwordEncoder, JwtService jwtService, UserRepository userRepository, UserProfileRepository userProfileRepository){
+    public DoctorService(DoctorRepository doctorRepository, PasswordEncoder passwordEncoder, JwtService jwtService, UserRepository userRepository, UserProfileRepository userProfileRepository,
+                         LoginThrottle loginThrottle, DoctorDirectory doctorDirectory, DailyRollupService rollups){
         this.doctorRepository = doctorRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
         this.userRepository = userRepository;
         this.userProfileRepository = userProfileRepository;
+        this.loginThrottle = loginThrottle;
+        this.doctorDirectory = doctorDirectory;
+        this.rollups = rollups;
     }
 
     public String doctorRegistration(String userName, String email, String password){
@@ -40,13 +48,16 @@ public class DoctorService {
         doctor.setUserName(userName);
         doctor.setEmail(email);
         doctor.setPassword(passwordEncoder.encode(password));
-        doctorRepository.save(doctor);
+        Doctor saved = doctorRepository.save(doctor);
+        doctorDirectory.invalidate();
+        rollups.record(DailyRollupService.DOCTOR_REGISTRATIONS, saved.getCreatedAt().toLocalDate(), 1);
         return "Doctor registered successfully.";
     }
 
-    public String doctorLogin(String email, String password){
+    public String doctorLogin(String email, String password, String clientIp){
+        loginThrottle.checkAttempt(email, clientIp);
         Doctor doctor = doctorRepository.findByEmail(email).orElseThrow(() -> new RuntimeException("User not found."));
-        if(!passwordEncoder.matches(password, doctor.getPassword())){
+        if(!loginThrottle.passwordMatches(password, doctor.getPassword())){
             throw new RuntimeException("Wrong password.");
         }
         return jwtService.generateToken(doctor.getDoctorId(), "DOCTOR");
@@ -0,0 +1,115 @@
+package org.spring.loginregistration.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default OTP store: a ConcurrentHashMap (internally striped, so no global lock) with a
+ * hard cap on the number of pending entries. Only valid on a single node.
+ */
+@Component
+@ConditionalOnProperty(name = "otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private record Entry(String otp, long expiresAt, int attempts, long lockedUntil) {
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        boolean isLocked(long now) {
+            return now < lockedUntil;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    public InMemoryOtpStore(@Value("${otp.max-entries:50000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public boolean save(String email, String otp, long expiresAt) {
+        if (entries.size() >= maxEntries && !entries.containsKey(email)) {
+            purgeExpired();
+            if (entries.size() >= maxEntries) {
+                throw new RuntimeException("Too many pending OTP requests. Please try again later.");
+            }
+        }
+        long now = System.currentTimeMillis();
+        boolean[] saved = {false};
+        entries.compute(email, (key, existing) -> {
+            if (existing != null && existing.isLocked(now)) {
+                return existing;
+            }
+            saved[0] = true;
+            int attempts = existing != null && !existing.isExpired(now) ? existing.attempts() : 0;
+            return new Entry(otp, expiresAt, attempts, 0);
+        });
+        return saved[0];
+    }
+
+    @Override
+    public Result verify(String email, String otp, int maxAttempts, long lockMillis) {
+        long now = System.currentTimeMillis();
+        Result[] result = {Result.INVALID};
+        entries.computeIfPresent(email, (key, entry) -> {
+            if (entry.isLocked(now)) {
+                result[0] = Result.LOCKED;
+                return entry;
+            }
+            if (entry.isExpired(now)) {
+                return null;
+            }
+            if (matches(entry.otp(), otp)) {
+                result[0] = Result.VALID;
+                return entry;
+            }
+            int attempts = entry.attempts() + 1;
+            if (attempts >= maxAttempts) {
+                result[0] = Result.LOCKED;
+                long lockedUntil = now + lockMillis;
+                return new Entry(null, lockedUntil, attempts, lockedUntil);
+            }
+            return new Entry(entry.otp(), entry.expiresAt(), attempts, 0);
+        });
+        return result[0];
+    }
+
+    @Override
+    public void remove(String email) {
+        entries.remove(email);
+    }
+
+    @Override
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        int[] removed = {0};
+        entries.values().removeIf(entry -> {
+            if (entry.isExpired(now)) {
+                removed[0]++;
+                return true;
+            }
+            return false;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public long size() {
+        return entries.size();
+    }
+
+    static boolean matches(String expected, String actual) {
+        if (expected == null || actual == null) {
+            return false;
+        }
+        // Constant-time comparison so response timing does not leak matching digits
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8), actual.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,29 +1,58 @@
 package org.spring.loginregistration.service;
 
+import org.spring.loginregistration.dto.TrackerStatusUpdate;
+import org.spring.loginregistration.exception.ConflictException;
 import org.spring.loginregistration.model.MedicationTracker;
-import org.spring.loginregistration.model.Prescription;
 import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.repository.MedicationTrackerRepository;
 import org.spring.loginregistration.repository.PrescriptionRepository;
 import org.spring.loginregistration.repository.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 @Service
 public class MedicationTrackerService {
 
+    private static final int MAX_BULK_UPDATES = 200;
+
     private final MedicationTrackerRepository trackerRepository;
     private final PrescriptionRepository prescriptionRepository;
     private final UserRepository userRepository;
+    private final TrackerMaterializer trackerMaterializer;
+    private final JdbcTemplate jdbcTemplate;
+    private final AdherenceService adherenceService;
 
-    public MedicationTrackerService(MedicationTrackerRepository trackerRepository, PrescriptionRepository prescriptionRepository, UserRepository userRepository) {
+    public MedicationTrackerService(MedicationTrackerRepository trackerRepository, PrescriptionRepository prescriptionRepository,
+                                    UserRepository userRepository, TrackerMaterializer trackerMaterializer, JdbcTemplate jdbcTemplate,
+                                    AdherenceService adherenceService) {
         this.trackerRepository = trackerRepository;
         this.prescriptionRepository = prescriptionRepository;
         this.userRepository = userRepository;
+        this.trackerMaterializer = trackerMaterializer;
+        this.jdbcTemplate = jdbcTemplate;
+        this.adherenceService = adherenceService;
+    }
+
+    // Older databases can hold duplicate trackers from the lazy one-save-per-medicine path, which
+    // keeps the unique constraint from being created. Keep one row per (user, date, medicine),
+    // preferring a taken one; the constraint is then added on the next schema update.
+    @EventListener(ApplicationReadyEvent.class)
+    public void removeDuplicateTrackers() {
+        int removed = jdbcTemplate.update(
+                "DELETE FROM medication_tracker t WHERE EXISTS (SELECT 1 FROM medication_tracker o " +
+                "WHERE o.user_id = t.user_id AND o.date = t.date AND o.medicine_name = t.medicine_name " +
+                "AND ((o.is_taken AND NOT t.is_taken) OR (o.is_taken = t.is_taken AND o.id < t.id)))");
+        if (removed > 0) {
+            System.out.println("Removed " + removed + " duplicate medication tracker rows");
+        }
+        // Rows created before MedicationTracker had a @Version column
+        jdbcTemplate.update("UPDATE medication_tracker SET version = 0 WHERE version IS NULL");
     }
 
     public List<MedicationTracker> getDailyMedications(Long userId) {
@@ -33,26 +62,124 @@ public class MedicationTrackerService {
         List<MedicationTracker> trackers = trackerRepository.findByUserAndDate(user, today);
 
         if (trackers.isEmpty()) {
-            Optional<Prescription> prescriptionOpt = prescriptionRepository.findTopByUserOrderByIdDesc(user);
-            if (prescriptionOpt.isPresent()) {
-                Prescription prescription = prescriptionOpt.get();
-                for (String med : prescription.getMedicines()) {
-                    MedicationTracker tracker = new MedicationTracker();
-                    tracker.setUser(user);
-                    tracker.setMedicineName(med);
-                    tracker.setDate(today);
-                    tracker.setTaken(false);
-                    trackers.add(trackerRepository.save(tracker));
+            List<String> medicines = prescriptionRepository.findLatestMedicines(userId);
+            if (!medicines.isEmpty()) {
+                List<TrackerMaterializer.TrackerRow> rows = new ArrayList<>();
+                for (String med : medicines) {
+                    if (med != null && !med.isBlank()) {
+                        rows.add(new TrackerMaterializer.TrackerRow(userId, med, today));
+                    }
                 }
+                // A concurrent request may have inserted some or all of these; re-read whatever won
+                trackerMaterializer.insertMissing(rows);
+                adherenceService.recordScheduled(rows);
+                trackers = trackerRepository.findByUserAndDate(user, today);
             }
         }
         return trackers;
     }
 
+    /**
+     * Sets explicit taken states for many of the user's trackers at once: one read, at most two
+     * set-based updates (to taken / to not taken) and one adherence batch. Rows already in the
+     * requested state are left alone, so retries and double taps are harmless. Items that carry a
+     * version fail with a conflict if the tracker changed since the client read it; a change that
+     * lands between our read and our update is caught by the version check afterwards and rolls
+     * the whole call back.
+     */
+    @Transactional
+    public List<MedicationTracker> setStatuses(Long userId, List<TrackerStatusUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            return List.of();
+        }
+        if (updates.size() > MAX_BULK_UPDATES) {
+            throw new RuntimeException("At most " + MAX_BULK_UPDATES + " trackers can be updated at once");
+        }
+        Map<Long, TrackerStatusUpdate> byId = new LinkedHashMap<>();
+        for (TrackerStatusUpdate update : updates) {
+            if (update.getId() == null) {
+                throw new RuntimeException("Tracker id is required");
+            }
+            byId.put(update.getId(), update); // the last entry for an id wins
+        }
+
+        Map<Long, MedicationTracker> current = new HashMap<>();
+        for (MedicationTracker tracker : trackerRepository.findOwned(byId.keySet(), userId)) {
+            current.put(tracker.getId(), tracker);
+        }
+        List<Long> toTaken = new ArrayList<>();
+        List<Long> toNotTaken = new ArrayList<>();
+        List<AdherenceService.DoseChange> changes = new ArrayList<>();
+        for (TrackerStatusUpdate update : byId.values()) {
+            MedicationTracker tracker = current.get(update.getId());
+            if (tracker == null) {
+                throw new RuntimeException("Tracker not found: " + update.getId());
+            }
+            if (update.getVersion() != null && !update.getVersion().equals(tracker.getVersion())) {
+                throw new ConflictException("Tracker " + tracker.getId() + " was changed by another request");
+            }
+            if (tracker.isTaken() != update.isTaken()) {
+                (update.isTaken() ? toTaken : toNotTaken).add(tracker.getId());
+                changes.add(new AdherenceService.DoseChange(userId, tracker.getMedicineName(), tracker.getDate(), update.isTaken()));
+            }
+        }
+
+        if (!toTaken.isEmpty()) {
+            trackerRepository.setTaken(toTaken, userId, true);
+        }
+        if (!toNotTaken.isEmpty()) {
+            trackerRepository.setTaken(toNotTaken, userId, false);
+        }
+        List<MedicationTracker> result = trackerRepository.findAllById(byId.keySet());
+        for (MedicationTracker tracker : result) {
+            long expected = current.get(tracker.getId()).getVersion()
+                    + (toTaken.contains(tracker.getId()) || toNotTaken.contains(tracker.getId()) ? 1 : 0);
+            if (tracker.getVersion() != expected) {
+                throw new ConflictException("Tracker " + tracker.getId() + " was changed by another request");
+            }
+        }
+        adherenceService.recordDoses(changes);
+        return result;
+    }
+
+    /**
+     * Re-creates the untaken trackers of days after today from the given medicines, so a new
+     * prescription replaces rows the nightly job already materialized from the previous one.
+     * Today's rows and anything already taken are left alone.
+     */
+    @Transactional
+    public void replaceFutureTrackers(Long userId, List<String> medicines) {
+        List<MedicationTracker> stale = trackerRepository.findUntakenAfter(userId, LocalDate.now());
+        if (stale.isEmpty()) {
+            return;
+        }
+        List<TrackerMaterializer.TrackerRow> removed = new ArrayList<>();
+        Set<LocalDate> days = new TreeSet<>();
+        for (MedicationTracker tracker : stale) {
+            removed.add(new TrackerMaterializer.TrackerRow(userId, tracker.getMedicineName(), tracker.getDate()));
+            days.add(tracker.getDate());
+        }
+        trackerRepository.deleteAllInBatch(stale);
+        adherenceService.unrecordScheduled(removed);
+
+        List<TrackerMaterializer.TrackerRow> rows = new ArrayList<>();
+        for (LocalDate day : days) {
+            for (String med : medicines == null ? List.<String>of() : new LinkedHashSet<>(medicines)) {
+                if (med != null && !med.isBlank()) {
+                    rows.add(new TrackerMaterializer.TrackerRow(userId, med, day));
+                }
+            }
+        }
+        trackerMaterializer.insertMissing(rows);
+        adherenceService.recordScheduled(rows);
+    }
+
     public MedicationTracker toggleStatus(Long trackerId) {
         MedicationTracker tracker = trackerRepository.findById(trackerId)
                 .orElseThrow(() -> new RuntimeException("Tracker not found"));
         tracker.setTaken(!tracker.isTaken());
-        return trackerRepository.save(tracker);
+        MedicationTracker saved = trackerRepository.save(tracker);
+        adherenceService.recordDose(tracker.getUser().getId(), tracker.getMedicineName(), tracker.getDate(), saved.isTaken());
+        return saved;
     }
 }
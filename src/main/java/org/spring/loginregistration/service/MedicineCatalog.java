@@ -0,0 +1,158 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.Medicine;
+import org.spring.loginregistration.repository.MedicineRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory medicine price list. Lookups read an immutable snapshot, so pricing a cart never
+ * touches the database; refresh() builds a new snapshot from the Medicine table and swaps it
+ * in with a single volatile write. Names are matched case-insensitively with whitespace
+ * collapsed. Until the first snapshot is loaded, lookups fall back to one IN query.
+ */
+@Service
+public class MedicineCatalog implements StatsProvider {
+
+    public static final double DEFAULT_PRICE = 150.0;
+
+    /** A medicine as listed in the catalog, under its original (display) name. */
+    public record CatalogEntry(String name, double price) {
+    }
+
+    // generation changes on every full refresh, not on single additions
+    private record Snapshot(Map<String, CatalogEntry> entries, long generation, long loadedAt) {
+    }
+
+    private final MedicineRepository medicineRepository;
+    private volatile Snapshot snapshot;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder fallbackQueries = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private volatile long lastRefreshMillis;
+
+    public MedicineCatalog(MedicineRepository medicineRepository) {
+        this.medicineRepository = medicineRepository;
+    }
+
+    public static String normalize(String name) {
+        return Medicine.normalizeName(name);
+    }
+
+    /** Prices keyed by the names exactly as given; unknown names get DEFAULT_PRICE. */
+    public Map<String, Double> getPrices(Collection<String> names) {
+        Map<String, CatalogEntry> entries = currentEntries(names);
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (String name : names) {
+            CatalogEntry entry = entries.get(normalize(name));
+            if (entry != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+            result.put(name, entry != null ? entry.price() : DEFAULT_PRICE);
+        }
+        return result;
+    }
+
+    /** The entry for a name, or null; never queries the database. */
+    public CatalogEntry find(String name) {
+        Snapshot current = snapshot;
+        return current == null ? null : current.entries().get(normalize(name));
+    }
+
+    public Collection<CatalogEntry> entries() {
+        Snapshot current = snapshot;
+        return current == null ? List.of() : current.entries().values();
+    }
+
+    /** Increases with every full refresh; -1 before the first one. */
+    public long generation() {
+        Snapshot current = snapshot;
+        return current == null ? -1 : current.generation();
+    }
+
+    private Map<String, CatalogEntry> currentEntries(Collection<String> names) {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current.entries();
+        }
+        // Cold start: one query for the whole request instead of one per name
+        fallbackQueries.increment();
+        Set<String> normalized = new HashSet<>();
+        names.forEach(name -> normalized.add(normalize(name)));
+        return toEntries(medicineRepository.findPricesByNormalizedNameIn(normalized));
+    }
+
+    private static Map<String, CatalogEntry> toEntries(List<Object[]> rows) {
+        Map<String, CatalogEntry> entries = new HashMap<>();
+        for (Object[] row : rows) {
+            // Lowest id wins when two rows normalize to the same name
+            entries.putIfAbsent(normalize((String) row[0]), new CatalogEntry((String) row[0], (Double) row[1]));
+        }
+        return entries;
+    }
+
+    /**
+     * Adds or re-prices one medicine without a full reload. Copies the snapshot, which is fine
+     * for occasional admin edits; bulk changes should call refresh() instead.
+     */
+    public synchronized void put(String name, double price) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return; // the first refresh will pick it up
+        }
+        Map<String, CatalogEntry> entries = new HashMap<>(current.entries());
+        entries.put(normalize(name), new CatalogEntry(name, price));
+        snapshot = new Snapshot(Collections.unmodifiableMap(entries), current.generation(), System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void loadOnStartup() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${medicine.catalog.refresh-ms:300000}", initialDelayString = "${medicine.catalog.refresh-ms:300000}")
+    public void scheduledRefresh() {
+        refresh();
+    }
+
+    /** Rebuilds the snapshot from the database; call after medicines are changed. */
+    public synchronized void refresh() {
+        long start = System.currentTimeMillis();
+        Map<String, CatalogEntry> entries = toEntries(medicineRepository.findAllNamesAndPrices());
+        long generation = snapshot == null ? 0 : snapshot.generation() + 1;
+        snapshot = new Snapshot(Collections.unmodifiableMap(entries), generation, System.currentTimeMillis());
+        lastRefreshMillis = System.currentTimeMillis() - start;
+        refreshes.increment();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "medicineCatalog";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Snapshot current = snapshot;
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("size", current == null ? 0L : current.entries().size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("fallbackQueries", fallbackQueries.sum());
+        stats.put("refreshes", refreshes.sum());
+        stats.put("lastRefreshMillis", lastRefreshMillis);
+        stats.put("snapshotAgeMillis", current == null ? -1L : System.currentTimeMillis() - current.loadedAt());
+        return stats;
+    }
+}
@@ -0,0 +1,320 @@
+package org.spring.loginregistration.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.spring.loginregistration.dto.MedicineImportStatus;
+import org.spring.loginregistration.exception.ConflictException;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.JobCheckpoint;
+import org.spring.loginregistration.repository.JobCheckpointRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulk medicine import from a CSV ("name,price", optional header) or NDJSON
+ * ({"name": ..., "price": ...} per line) stream. The upload is read line by line and written in
+ * batches of batch-size rows, each batch in its own transaction: existing names are re-priced
+ * with one batched UPDATE, new ones added with one batched INSERT ... ON CONFLICT DO NOTHING.
+ * Names are matched on normalized_name, the same case- and whitespace-insensitive form the
+ * catalog uses, so "PARACETAMOL 500" re-prices "Paracetamol 500" instead of adding a row.
+ * Bad lines are counted and skipped. If the import fails part way, batches already written stay.
+ *
+ * Once the stream is done the MedicineCatalog is refreshed, which swaps in the new prices in one
+ * step and makes the search index rebuild in the background. Only one import runs at a time;
+ * its progress can be polled while the upload is still streaming.
+ */
+@Service
+public class MedicineImportService implements StatsProvider {
+
+    private static final String UPDATE_SQL = "UPDATE medicine SET price = ? WHERE normalized_name = ?";
+    private static final String INSERT_SQL = "INSERT INTO medicine (id, name, normalized_name, price) " +
+            "VALUES (nextval('medicine_seq'), ?, ?, ?) ON CONFLICT DO NOTHING";
+    private static final String NAME_MIGRATION = "medicine-normalized-name";
+    private static final int MAX_ERRORS_REPORTED = 20;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MedicineCatalog medicineCatalog;
+    private final ObjectMapper objectMapper;
+    private final JobCheckpointRepository checkpointRepository;
+    private final int batchSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Progress current;
+
+    private final LongAdder imports = new LongAdder();
+    private final LongAdder totalUpserted = new LongAdder();
+    private volatile long lastImportMillis;
+
+    public MedicineImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                 MedicineCatalog medicineCatalog, ObjectMapper objectMapper,
+                                 JobCheckpointRepository checkpointRepository,
+                                 @Value("${medicine.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.medicineCatalog = medicineCatalog;
+        this.objectMapper = objectMapper;
+        this.checkpointRepository = checkpointRepository;
+        this.batchSize = batchSize;
+    }
+
+    // Written only by the importing thread, read by status polls
+    private static final class Progress {
+        final String format;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        final long startNanos = System.nanoTime();
+        final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        volatile String state = "RUNNING";
+        volatile long linesRead;
+        volatile long upserted;
+        volatile long rejected;
+        volatile LocalDateTime finishedAt;
+
+        Progress(String format) {
+            this.format = format;
+        }
+
+        void reject(long line, String reason) {
+            rejected++;
+            if (errors.size() < MAX_ERRORS_REPORTED) {
+                errors.add("line " + line + ": " + reason);
+            }
+        }
+
+        MedicineImportStatus toStatus() {
+            long elapsedMillis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+            return new MedicineImportStatus(state, format, linesRead, upserted, rejected,
+                    upserted * 1000 / elapsedMillis, List.copyOf(errors), startedAt, finishedAt);
+        }
+    }
+
+    private record Row(String name, String normalizedName, double price) {
+    }
+
+    /**
+     * One-off migration to normalized names, recorded in job_checkpoint so it never runs again.
+     * Fills normalized_name on rows written before the column existed, deletes rows whose
+     * normalized name repeats an older row (the catalog already ignored them: lowest id wins) and
+     * drops the old case-sensitive constraint. Runs before the catalog loads its first snapshot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(-1)
+    public void migrateNormalizedNames() {
+        if (checkpointRepository.findById(NAME_MIGRATION).map(JobCheckpoint::isCompleted).orElse(false)) {
+            return;
+        }
+        int[] counts = transactionTemplate.execute(status -> {
+            Set<String> seen = new HashSet<>();
+            List<Object[]> backfill = new ArrayList<>();
+            List<Long> duplicates = new ArrayList<>();
+            jdbcTemplate.query("SELECT id, name, normalized_name FROM medicine WHERE name IS NOT NULL ORDER BY id", rs -> {
+                String stored = rs.getString(3);
+                String normalized = stored != null ? stored : MedicineCatalog.normalize(rs.getString(2));
+                if (!seen.add(normalized)) {
+                    duplicates.add(rs.getLong(1));
+                } else if (stored == null) {
+                    backfill.add(new Object[]{normalized, rs.getLong(1)});
+                }
+            });
+            // Duplicates go first, so the backfill never collides with the unique constraint
+            jdbcTemplate.batchUpdate("DELETE FROM medicine WHERE id = ?",
+                    duplicates.stream().map(id -> new Object[]{id}).toList());
+            jdbcTemplate.batchUpdate("UPDATE medicine SET normalized_name = ? WHERE id = ?", backfill);
+            jdbcTemplate.execute("ALTER TABLE medicine DROP CONSTRAINT IF EXISTS uk_medicine_name");
+
+            JobCheckpoint checkpoint = new JobCheckpoint();
+            checkpoint.setJobName(NAME_MIGRATION);
+            checkpoint.setCompleted(true);
+            checkpoint.setUpdatedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            return new int[]{backfill.size(), duplicates.size()};
+        });
+        System.out.println("Medicine name migration: normalized " + counts[0] + " names, removed "
+                + counts[1] + " duplicate rows");
+    }
+
+    public MedicineImportStatus importStream(InputStream input, String format) {
+        String fmt = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (!fmt.equals("csv") && !fmt.equals("ndjson")) {
+            throw new RuntimeException("Import format must be csv or ndjson");
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new ConflictException("A medicine import is already running");
+        }
+        Progress progress = new Progress(fmt);
+        current = progress;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            // Keyed by normalized name so a batch never carries the same medicine twice; the later line wins
+            Map<String, Row> batch = new LinkedHashMap<>();
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                progress.linesRead = lineNumber;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Row row;
+                try {
+                    row = fmt.equals("csv") ? parseCsv(line) : parseJson(line);
+                } catch (IllegalArgumentException e) {
+                    if (lineNumber == 1 && fmt.equals("csv")) {
+                        continue; // header
+                    }
+                    progress.reject(lineNumber, e.getMessage());
+                    continue;
+                }
+                batch.put(row.normalizedName(), row);
+                if (batch.size() >= batchSize) {
+                    progress.upserted += writeBatch(batch.values());
+                    batch.clear();
+                }
+            }
+            progress.upserted += writeBatch(batch.values());
+            progress.state = "COMPLETED";
+        } catch (IOException | RuntimeException e) {
+            progress.state = "FAILED";
+            progress.errors.add("import stopped after line " + progress.linesRead + ": " + e.getMessage());
+            System.err.println("Medicine import failed after " + progress.upserted + " rows: " + e.getMessage());
+        } finally {
+            // Publish whatever was written, even after a failure
+            medicineCatalog.refresh();
+            progress.finishedAt = LocalDateTime.now();
+            lastImportMillis = (System.nanoTime() - progress.startNanos) / 1_000_000;
+            totalUpserted.add(progress.upserted);
+            imports.increment();
+            running.set(false);
+        }
+        System.out.println("Medicine import (" + fmt + "): " + progress.upserted + " rows upserted, "
+                + progress.rejected + " rejected in " + lastImportMillis + " ms");
+        return progress.toStatus();
+    }
+
+    /** Progress of the running import, or the result of the last one; null if none has run. */
+    public MedicineImportStatus getStatus() {
+        Progress progress = current;
+        return progress == null ? null : progress.toStatus();
+    }
+
+    private int writeBatch(Collection<Row> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<Row> batch = new ArrayList<>(rows);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (ps, row) -> {
+                ps.setDouble(1, row.price());
+                ps.setString(2, row.normalizedName());
+            });
+            // Names updated above conflict and are skipped
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, row) -> {
+                ps.setString(1, row.name());
+                ps.setString(2, row.normalizedName());
+                ps.setDouble(3, row.price());
+            });
+        });
+        return batch.size();
+    }
+
+    private static Row parseCsv(String line) {
+        List<String> fields = splitCsv(line);
+        if (fields.size() < 2) {
+            throw new IllegalArgumentException("expected name,price");
+        }
+        return toRow(fields.get(0), fields.get(1));
+    }
+
+    // One record per line; fields may be quoted, with "" as an escaped quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quote");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Row parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("invalid JSON");
+        }
+        if (node == null || !node.hasNonNull("name") || !node.hasNonNull("price")) {
+            throw new IllegalArgumentException("expected {\"name\": ..., \"price\": ...}");
+        }
+        return toRow(node.get("name").asText(), node.get("price").asText());
+    }
+
+    // Same clean-up as a single save, so imports and admin edits agree on names
+    private static Row toRow(String rawName, String rawPrice) {
+        String name = rawName.trim().replaceAll("\\s+", " ");
+        if (name.isEmpty() || name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("invalid name");
+        }
+        double price;
+        try {
+            price = Double.parseDouble(rawPrice.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid price '" + rawPrice.trim() + "'");
+        }
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("invalid price '" + rawPrice.trim() + "'");
+        }
+        return new Row(name, MedicineCatalog.normalize(name), price);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "medicineImport";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("imports", imports.sum());
+        stats.put("totalUpserted", totalUpserted.sum());
+        stats.put("lastImportMillis", lastImportMillis);
+        stats.put("running", running.get() ? 1L : 0L);
+        return stats;
+    }
+}
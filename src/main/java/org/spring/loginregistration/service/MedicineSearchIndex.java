@@ -0,0 +1,156 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.dto.MedicineSuggestion;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Medicine autocomplete over the MedicineCatalog: prefix completions first, topped up with
+ * trigram (typo-tolerant) matches. Searches hold a read lock on the current index; single
+ * additions take the write lock and extend it in place. When the catalog has been fully
+ * refreshed since the index was built, a new index is built in the background and swapped in
+ * while searches keep using the old one.
+ */
+@Service
+public class MedicineSearchIndex implements StatsProvider {
+
+    private static final int MAX_LIMIT = 50;
+
+    private final MedicineCatalog medicineCatalog;
+    private final double minFuzzyScore;
+
+    private volatile MedicineTextIndex index = new MedicineTextIndex();
+    private volatile long builtFromGeneration = -1;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchNanos = new LongAdder();
+    private final LongAdder rebuilds = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public MedicineSearchIndex(MedicineCatalog medicineCatalog,
+                               @Value("${medicine.search.min-fuzzy-score:0.3}") double minFuzzyScore) {
+        this.medicineCatalog = medicineCatalog;
+        this.minFuzzyScore = minFuzzyScore;
+    }
+
+    public List<MedicineSuggestion> search(String query, int limit) {
+        long start = System.nanoTime();
+        rebuildIfStale();
+        String key = MedicineCatalog.normalize(query);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int max = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<String> prefixMatches;
+        List<MedicineTextIndex.Match> fuzzyMatches = List.of();
+        lock.readLock().lock();
+        try {
+            prefixMatches = index.prefixSearch(key, max);
+            if (prefixMatches.size() < max && key.length() >= 3) {
+                fuzzyMatches = index.fuzzySearch(key, max, minFuzzyScore);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<String, MedicineSuggestion> results = new LinkedHashMap<>();
+        for (String name : prefixMatches) {
+            results.put(name, suggestion(name, "PREFIX", 1.0));
+        }
+        for (MedicineTextIndex.Match match : fuzzyMatches) {
+            if (results.size() >= max) {
+                break;
+            }
+            results.putIfAbsent(match.name(), suggestion(match.name(), "FUZZY", match.score()));
+        }
+        searches.increment();
+        searchNanos.add(System.nanoTime() - start);
+        return new ArrayList<>(results.values());
+    }
+
+    private MedicineSuggestion suggestion(String name, String matchType, double score) {
+        MedicineCatalog.CatalogEntry entry = medicineCatalog.find(name);
+        return new MedicineSuggestion(name, entry != null ? entry.price() : null, matchType, Math.round(score * 100) / 100.0);
+    }
+
+    /** Adds one medicine to the live index. */
+    public void add(String name) {
+        lock.writeLock().lock();
+        try {
+            index.add(MedicineCatalog.normalize(name), name);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Runs after MedicineCatalog has loaded its first snapshot, so the first search is not the one paying for the build
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void buildOnStartup() {
+        rebuildIfStale();
+    }
+
+    private void rebuildIfStale() {
+        long generation = medicineCatalog.generation();
+        if (generation == builtFromGeneration || !rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        if (builtFromGeneration < 0) {
+            rebuild(generation); // first use: nothing to serve yet, so build inline
+            return;
+        }
+        Thread thread = new Thread(() -> rebuild(generation), "medicine-index-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void rebuild(long generation) {
+        try {
+            long start = System.currentTimeMillis();
+            MedicineTextIndex fresh = new MedicineTextIndex();
+            for (MedicineCatalog.CatalogEntry entry : medicineCatalog.entries()) {
+                fresh.add(MedicineCatalog.normalize(entry.name()), entry.name());
+            }
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                builtFromGeneration = generation;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            lastRebuildMillis = System.currentTimeMillis() - start;
+            rebuilds.increment();
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "medicineSearch";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        long count = searches.sum();
+        stats.put("size", (long) index.size());
+        stats.put("searches", count);
+        stats.put("avgSearchMicros", count == 0 ? 0 : searchNanos.sum() / count / 1000);
+        stats.put("rebuilds", rebuilds.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+}
@@ -0,0 +1,261 @@
+package org.spring.loginregistration.service;
+
+import java.util.*;
+
+/**
+ * Name index behind medicine autocomplete: a radix trie over normalized names for prefix
+ * completion, and a trigram inverted index for typo-tolerant matches.
+ *
+ * Names are stored once and referred to by int ids; postings are plain int arrays, so 100k
+ * names fit in a few tens of MB. Not thread-safe; MedicineSearchIndex guards it with a lock.
+ */
+class MedicineTextIndex {
+
+    /** Postings counted per fuzzy query; the rest of the query's grams are only checked for the shortlist. */
+    private static final int MAX_POSTINGS_SCANNED = 15_000;
+    private static final int SHORTLIST_FACTOR = 4;
+
+    private static final String[] NO_LABELS = new String[0];
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // Radix trie node; edges are sorted by their first character
+    private static final class Node {
+        String[] labels = NO_LABELS;
+        Node[] children = NO_CHILDREN;
+        int id = -1; // name id if a name ends here
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+
+    record Match(String name, double score, int id) {
+    }
+
+    private final Node root = new Node();
+    private final List<String> names = new ArrayList<>(); // display names by id
+    private final IntList gramCounts = new IntList();
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final Set<String> keys = new HashSet<>();
+
+    int size() {
+        return names.size();
+    }
+
+    /** Adds a name; a name that normalizes to one already present is ignored. */
+    void add(String key, String displayName) {
+        if (key.isEmpty() || !keys.add(key)) {
+            return;
+        }
+        int id = names.size();
+        names.add(displayName);
+        insertIntoTrie(key, id);
+        Set<String> grams = trigrams(key);
+        gramCounts.add(grams.size());
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new IntList()).add(id);
+        }
+    }
+
+    private void insertIntoTrie(String key, int id) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            int index = findChild(node, key.charAt(i));
+            if (index < 0) {
+                Node leaf = new Node();
+                leaf.id = id;
+                insertChild(node, -index - 1, key.substring(i), leaf);
+                return;
+            }
+            String label = node.labels[index];
+            int common = 0;
+            while (common < label.length() && i + common < key.length() && label.charAt(common) == key.charAt(i + common)) {
+                common++;
+            }
+            if (common < label.length()) {
+                // Split the edge: node -label[0, common)-> middle -label[common..]-> old child
+                Node middle = new Node();
+                middle.labels = new String[]{label.substring(common)};
+                middle.children = new Node[]{node.children[index]};
+                node.labels[index] = label.substring(0, common);
+                node.children[index] = middle;
+            }
+            node = node.children[index];
+            i += common;
+        }
+        node.id = id;
+    }
+
+    private static int findChild(Node node, char first) {
+        int lo = 0;
+        int hi = node.labels.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char c = node.labels[mid].charAt(0);
+            if (c < first) {
+                lo = mid + 1;
+            } else if (c > first) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    private static void insertChild(Node node, int position, String label, Node child) {
+        int n = node.labels.length;
+        String[] labels = new String[n + 1];
+        Node[] children = new Node[n + 1];
+        System.arraycopy(node.labels, 0, labels, 0, position);
+        System.arraycopy(node.children, 0, children, 0, position);
+        labels[position] = label;
+        children[position] = child;
+        System.arraycopy(node.labels, position, labels, position + 1, n - position);
+        System.arraycopy(node.children, position, children, position + 1, n - position);
+        node.labels = labels;
+        node.children = children;
+    }
+
+    /** Names starting with the prefix, in alphabetical order. */
+    List<String> prefixSearch(String prefix, int limit) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int index = findChild(node, prefix.charAt(i));
+            if (index < 0) {
+                return List.of();
+            }
+            String label = node.labels[index];
+            int n = Math.min(label.length(), prefix.length() - i);
+            if (!label.regionMatches(0, prefix, i, n)) {
+                return List.of();
+            }
+            node = node.children[index];
+            i += label.length(); // may overshoot when the prefix ends inside this edge
+        }
+        List<String> out = new ArrayList<>(limit);
+        collect(node, out, limit);
+        return out;
+    }
+
+    private void collect(Node node, List<String> out, int limit) {
+        if (node.id >= 0) {
+            out.add(names.get(node.id));
+        }
+        for (int c = 0; c < node.children.length && out.size() < limit; c++) {
+            collect(node.children[c], out, limit);
+        }
+    }
+
+    /**
+     * Names sharing enough trigrams with the query, best first (Jaccard similarity).
+     *
+     * Work per query is bounded: posting lists are counted rarest first until
+     * MAX_POSTINGS_SCANNED postings have been read, which yields a shortlist of the names with
+     * the best partial scores. Only the shortlist is then scored exactly, by binary searching
+     * the lists that were not counted (ids are assigned in increasing order, so every posting
+     * list is sorted). Grams common enough to fall outside the budget barely affect ranking.
+     */
+    List<Match> fuzzySearch(String query, int limit, double minScore) {
+        Set<String> queryGrams = trigrams(query);
+        if (queryGrams.isEmpty() || names.isEmpty()) {
+            return List.of();
+        }
+        List<IntList> lists = new ArrayList<>(queryGrams.size());
+        for (String gram : queryGrams) {
+            IntList list = postings.get(gram);
+            if (list != null) {
+                lists.add(list);
+            }
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        int[] shared = sharedCounts(names.size());
+        IntList touched = new IntList();
+        try {
+            int counted = 0;
+            int scanned = 0;
+            while (counted < lists.size() && scanned + lists.get(counted).size <= MAX_POSTINGS_SCANNED) {
+                IntList list = lists.get(counted++);
+                scanned += list.size;
+                for (int p = 0; p < list.size; p++) {
+                    int id = list.values[p];
+                    if (shared[id]++ == 0) {
+                        touched.add(id);
+                    }
+                }
+            }
+
+            int shortlistSize = limit * SHORTLIST_FACTOR;
+            PriorityQueue<Match> shortlist = new PriorityQueue<>(Comparator.comparingDouble(Match::score));
+            for (int t = 0; t < touched.size; t++) {
+                int id = touched.values[t];
+                double score = jaccard(shared[id], queryGrams.size(), gramCounts.values[id]);
+                if (shortlist.size() < shortlistSize || score > shortlist.peek().score()) {
+                    shortlist.add(new Match(null, score, id));
+                    if (shortlist.size() > shortlistSize) {
+                        shortlist.poll();
+                    }
+                }
+            }
+
+            List<Match> out = new ArrayList<>(shortlist.size());
+            for (Match candidate : shortlist) {
+                int id = candidate.id();
+                int common = shared[id];
+                for (int k = counted; k < lists.size(); k++) {
+                    IntList list = lists.get(k);
+                    if (Arrays.binarySearch(list.values, 0, list.size, id) >= 0) {
+                        common++;
+                    }
+                }
+                double score = jaccard(common, queryGrams.size(), gramCounts.values[id]);
+                if (score >= minScore) {
+                    out.add(new Match(names.get(id), score, id));
+                }
+            }
+            out.sort(Comparator.comparingDouble(Match::score).reversed());
+            return out.size() > limit ? out.subList(0, limit) : out;
+        } finally {
+            for (int t = 0; t < touched.size; t++) {
+                shared[touched.values[t]] = 0;
+            }
+        }
+    }
+
+    private static double jaccard(int common, int queryGrams, int nameGrams) {
+        return (double) common / (queryGrams + nameGrams - common);
+    }
+
+    // Per-thread scratch array, reset after each search, so queries don't allocate size-n arrays
+    private static final ThreadLocal<int[]> SHARED_COUNTS = ThreadLocal.withInitial(() -> new int[0]);
+
+    private static int[] sharedCounts(int size) {
+        int[] counts = SHARED_COUNTS.get();
+        if (counts.length < size) {
+            counts = new int[Math.max(size, counts.length * 2)];
+            SHARED_COUNTS.set(counts);
+        }
+        return counts;
+    }
+
+    // Padded so the start and end of a name count too: "abc" -> "  a", " ab", "abc", "bc "
+    static Set<String> trigrams(String key) {
+        Set<String> grams = new HashSet<>();
+        String padded = "  " + key + " ";
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
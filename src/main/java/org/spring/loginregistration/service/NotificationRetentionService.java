@@ -0,0 +1,143 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the notification table small. Read notifications older than max-age-days are either
+ * moved to notification_archive (mode=archive) or deleted (mode=delete).
+ *
+ * Work is done in batches of batch-size rows, each in its own short transaction, walking the
+ * primary key upwards so no batch rescans rows an earlier one skipped. A run stops after
+ * max-batches so one night's backlog never turns into an hours-long job.
+ */
+@Service
+public class NotificationRetentionService implements StatsProvider {
+
+    private static final String SELECT_BATCH_SQL =
+            "SELECT id FROM notification WHERE id > :lastId AND is_read = TRUE AND timestamp < :cutoff ORDER BY id LIMIT :limit";
+    private static final String ARCHIVE_SQL =
+            "INSERT INTO notification_archive (id, user_id, doctor_id, message, timestamp, archived_at) " +
+            "SELECT id, user_id, doctor_id, message, timestamp, :now FROM notification WHERE id IN (:ids)";
+    private static final String DELETE_SQL = "DELETE FROM notification WHERE id IN (:ids)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean archive;
+    private final int maxAgeDays;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long pauseMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder totalMoved = new LongAdder();
+    private volatile long lastRunMoved;
+    private volatile long lastRunMillis;
+
+    public NotificationRetentionService(NamedParameterJdbcTemplate jdbcTemplate,
+                                        TransactionTemplate transactionTemplate,
+                                        @Value("${notification.retention.enabled:true}") boolean enabled,
+                                        @Value("${notification.retention.mode:archive}") String mode,
+                                        @Value("${notification.retention.max-age-days:90}") int maxAgeDays,
+                                        @Value("${notification.retention.batch-size:1000}") int batchSize,
+                                        @Value("${notification.retention.max-batches:200}") int maxBatches,
+                                        @Value("${notification.retention.pause-ms:50}") long pauseMillis) {
+        if (!"archive".equalsIgnoreCase(mode) && !"delete".equalsIgnoreCase(mode)) {
+            throw new IllegalArgumentException("notification.retention.mode must be 'archive' or 'delete'");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.archive = "archive".equalsIgnoreCase(mode);
+        this.maxAgeDays = maxAgeDays;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @Scheduled(cron = "${notification.retention.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        if (enabled) {
+            runOnce();
+        }
+    }
+
+    /** Runs one retention pass and returns the number of rows moved or deleted. */
+    public long runOnce() {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        long moved = 0;
+        try {
+            Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(maxAgeDays));
+            long lastId = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                List<Long> ids = jdbcTemplate.queryForList(SELECT_BATCH_SQL, new MapSqlParameterSource()
+                        .addValue("lastId", lastId)
+                        .addValue("cutoff", cutoff)
+                        .addValue("limit", batchSize), Long.class);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                moved += transactionTemplate.execute(status -> moveBatch(ids));
+                lastId = ids.get(ids.size() - 1);
+                if (ids.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseMillis); // let regular traffic in between batches
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Notification retention failed after " + moved + " rows: " + e.getMessage());
+        } finally {
+            lastRunMoved = moved;
+            lastRunMillis = System.currentTimeMillis() - start;
+            totalMoved.add(moved);
+            runs.increment();
+            running.set(false);
+        }
+        System.out.println("Notification retention: " + (archive ? "archived " : "deleted ") + moved
+                + " rows in " + lastRunMillis + " ms");
+        return moved;
+    }
+
+    private int moveBatch(List<Long> ids) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        if (archive) {
+            jdbcTemplate.update(ARCHIVE_SQL, params.addValue("now", Timestamp.valueOf(LocalDateTime.now())));
+        }
+        return jdbcTemplate.update(DELETE_SQL, params);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "notificationRetention";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("runs", runs.sum());
+        stats.put("totalMoved", totalMoved.sum());
+        stats.put("lastRunMoved", lastRunMoved);
+        stats.put("lastRunMillis", lastRunMillis);
+        return stats;
+    }
+}
@@ -1,60 +1,157 @@
 package org.spring.loginregistration.service;
 
+import org.spring.loginregistration.dto.NotificationDTO;
+import org.spring.loginregistration.dto.NotificationPage;
 import org.spring.loginregistration.model.Doctor;
-import org.spring.loginregistration.model.Notification;
 import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class NotificationService {
     private final NotificationRepository notificationRepository;
+    private final NotificationWriter notificationWriter;
+    private final UnreadCounterService unreadCounters;
+    private final NotificationStreamService streamService;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public NotificationService(NotificationRepository notificationRepository) {
+    public NotificationService(NotificationRepository notificationRepository, NotificationWriter notificationWriter,
+                               UnreadCounterService unreadCounters, NotificationStreamService streamService,
+                               @Value("${notification.feed.page-size:20}") int defaultPageSize,
+                               @Value("${notification.feed.max-page-size:100}") int maxPageSize) {
         this.notificationRepository = notificationRepository;
+        this.notificationWriter = notificationWriter;
+        this.unreadCounters = unreadCounters;
+        this.streamService = streamService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
+    // Inserts are queued and written in batches by NotificationWriter, off the request thread
     public void createNotification(User user, String message) {
-        Notification n = new Notification();
-        n.setUser(user);
-        n.setMessage(message);
-        notificationRepository.save(n);
+        String key = UnreadCounterService.userKey(user.getId());
+        LocalDateTime now = LocalDateTime.now();
+        // Count first: a counter seeded after the row is flushed would include it twice
+        unreadCounters.increment(key);
+        notificationWriter.enqueue(new NotificationWriter.PendingNotification(user.getId(), null, message, now));
+        streamService.publishNotification(key, message, now, unreadCounters.get(key));
     }
 
     public void createDoctorNotification(Doctor doctor, String message) {
-        Notification n = new Notification();
-        n.setDoctor(doctor);
-        n.setMessage(message);
-        notificationRepository.save(n);
+        String key = UnreadCounterService.doctorKey(doctor.getDoctorId());
+        LocalDateTime now = LocalDateTime.now();
+        unreadCounters.increment(key);
+        notificationWriter.enqueue(new NotificationWriter.PendingNotification(null, doctor.getDoctorId(), message, now));
+        streamService.publishNotification(key, message, now, unreadCounters.get(key));
     }
 
-    public List<Notification> getMyNotifications(User user) {
-        return notificationRepository.findByUserOrderByTimestampDesc(user);
+    /** One notification for one patient, as passed to createUserNotifications. */
+    public record UserMessage(Long userId, String message) {
     }
 
-    public List<Notification> getDoctorNotifications(Doctor doctor) {
-        return notificationRepository.findByDoctorOrderByTimestampDesc(doctor);
+    /** Same as createNotification for many patients at once, keyed by user id. */
+    public void createUserNotifications(Map<Long, String> messagesByUserId) {
+        List<UserMessage> messages = new ArrayList<>();
+        messagesByUserId.forEach((userId, message) -> messages.add(new UserMessage(userId, message)));
+        createUserNotifications(messages);
     }
 
+    /** Same as createNotification for many messages at once; a patient may appear more than once. */
+    public void createUserNotifications(List<UserMessage> messages) {
+        LocalDateTime now = LocalDateTime.now();
+        for (UserMessage message : messages) {
+            String key = UnreadCounterService.userKey(message.userId());
+            unreadCounters.increment(key);
+            notificationWriter.enqueue(new NotificationWriter.PendingNotification(message.userId(), null, message.message(), now));
+            streamService.publishNotification(key, message.message(), now, unreadCounters.get(key));
+        }
+    }
+
+    public NotificationPage getMyNotifications(User user, String cursor, Integer size) {
+        Limit limit = Limit.of(pageSize(size) + 1); // one extra row tells us whether there is a next page
+        Cursor after = Cursor.decode(cursor);
+        List<NotificationDTO> rows = after == null
+                ? notificationRepository.findFeedForUser(user, limit)
+                : notificationRepository.findFeedForUserBefore(user, after.timestamp(), after.id(), limit);
+        return toPage(rows, limit.max() - 1);
+    }
+
+    public NotificationPage getDoctorNotifications(Doctor doctor, String cursor, Integer size) {
+        Limit limit = Limit.of(pageSize(size) + 1);
+        Cursor after = Cursor.decode(cursor);
+        List<NotificationDTO> rows = after == null
+                ? notificationRepository.findFeedForDoctor(doctor, limit)
+                : notificationRepository.findFeedForDoctorBefore(doctor, after.timestamp(), after.id(), limit);
+        return toPage(rows, limit.max() - 1);
+    }
+
+    private int pageSize(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultPageSize;
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    private NotificationPage toPage(List<NotificationDTO> rows, int size) {
+        if (rows.size() <= size) {
+            return new NotificationPage(rows, null);
+        }
+        List<NotificationDTO> items = rows.subList(0, size);
+        NotificationDTO last = items.get(size - 1);
+        return new NotificationPage(items, new Cursor(last.getTimestamp(), last.getId()).encode());
+    }
+
+    // Opaque to clients: base64url of "<timestamp>,<id>" of the last row on the page
+    private record Cursor(LocalDateTime timestamp, Long id) {
+        String encode() {
+            String raw = timestamp + "," + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            if (cursor == null || cursor.isBlank()) {
+                return null;
+            }
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int comma = raw.lastIndexOf(',');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, comma)), Long.parseLong(raw.substring(comma + 1)));
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid cursor");
+            }
+        }
+    }
+
+    // Served from the in-memory counters, not a COUNT on the notification table
     public long getUnreadCount(User user) {
-        return notificationRepository.countByUserAndIsReadFalse(user);
+        return unreadCounters.get(UnreadCounterService.userKey(user.getId()));
     }
 
     public long getDoctorUnreadCount(Doctor doctor) {
-        return notificationRepository.countByDoctorAndIsReadFalse(doctor);
+        return unreadCounters.get(UnreadCounterService.doctorKey(doctor.getDoctorId()));
     }
 
     public void markAllAsRead(User user) {
-        List<Notification> unread = notificationRepository.findByUserOrderByTimestampDesc(user);
-        unread.forEach(n -> n.setRead(true));
-        notificationRepository.saveAll(unread);
+        String key = UnreadCounterService.userKey(user.getId());
+        notificationRepository.markAllReadForUser(user);
+        unreadCounters.reset(key);
+        streamService.publishUnreadCount(key, 0);
     }
 
     public void markDoctorAllAsRead(Doctor doctor) {
-        List<Notification> unread = notificationRepository.findByDoctorOrderByTimestampDesc(doctor);
-        unread.forEach(n -> n.setRead(true));
-        notificationRepository.saveAll(unread);
+        String key = UnreadCounterService.doctorKey(doctor.getDoctorId());
+        notificationRepository.markAllReadForDoctor(doctor);
+        unreadCounters.reset(key);
+        streamService.publishUnreadCount(key, 0);
     }
 }
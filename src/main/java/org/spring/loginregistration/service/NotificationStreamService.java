@@ -0,0 +1,255 @@
+package org.spring.loginregistration.service;
+
+import jakarta.annotation.PreDestroy;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-Sent Events for notifications. Each connected patient or doctor holds an SseEmitter
+ * (servlet async, so an idle connection costs no thread). New notifications and unread-count
+ * changes are pushed as "notification" and "unread-count" events.
+ *
+ * Each connection has its own bounded queue of pending events, drained in order by at most one
+ * virtual thread at a time. A client that blocks in send only parks its own drain, never the
+ * request that created the notification or other clients. A client that falls max-pending
+ * events behind is closed; it reconnects and catches up through the replay buffer. The last
+ * few events per recipient are kept so a client that
+ * reconnects with Last-Event-ID gets what it missed; event ids are seeded from the clock so
+ * they keep increasing across restarts.
+ */
+@Service
+public class NotificationStreamService implements StatsProvider {
+
+    public record StreamEvent(long id, String name, Map<String, Object> data, long createdAt) {
+    }
+
+    // Marker queued by the heartbeat; sent as an SSE comment
+    private static final StreamEvent HEARTBEAT = new StreamEvent(0, null, null, 0);
+
+    private final class Connection {
+        final String recipientKey;
+        final SseEmitter emitter;
+        final BlockingQueue<StreamEvent> pending;
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Connection(String recipientKey, SseEmitter emitter) {
+            this.recipientKey = recipientKey;
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(maxPending);
+        }
+    }
+
+    private final ConcurrentHashMap<String, Set<Connection>> emitters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Deque<StreamEvent>> recentEvents = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ExecutorService sender;
+    private final long emitterTimeoutMillis;
+    private final int replaySize;
+    private final long replayRetentionMillis;
+    private final int maxPending;
+
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder eventsSent = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder sendFailures = new LongAdder();
+    private final LongAdder slowClosed = new LongAdder();
+
+    public NotificationStreamService(@Value("${notification.stream.timeout-ms:1800000}") long emitterTimeoutMillis,
+                                     @Value("${notification.stream.replay-size:20}") int replaySize,
+                                     @Value("${notification.stream.replay-retention-ms:300000}") long replayRetentionMillis,
+                                     @Value("${notification.stream.max-pending:64}") int maxPending) {
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.replaySize = replaySize;
+        this.replayRetentionMillis = replayRetentionMillis;
+        this.maxPending = maxPending;
+        this.sender = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-stream-", 0).factory());
+    }
+
+    public SseEmitter connect(String recipientKey, Long lastEventId, long unreadCount) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Connection connection = new Connection(recipientKey, emitter);
+        // Added inside compute so a concurrent removeEmitter cannot drop the set we add to
+        emitters.compute(recipientKey, (k, set) -> {
+            Set<Connection> connections = set != null ? set : ConcurrentHashMap.newKeySet();
+            connections.add(connection);
+            return connections;
+        });
+        Runnable remove = () -> removeEmitter(connection);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        connects.increment();
+
+        List<StreamEvent> initial = new ArrayList<>();
+        if (lastEventId != null) {
+            Deque<StreamEvent> recent = recentEvents.get(recipientKey);
+            if (recent != null) {
+                synchronized (recent) {
+                    for (StreamEvent event : recent) {
+                        if (event.id() > lastEventId) {
+                            initial.add(event);
+                        }
+                    }
+                }
+            }
+            replayed.add(initial.size());
+        }
+        // Always start with the current count so the badge is right even if events were lost
+        initial.add(unreadCountEvent(unreadCount));
+        enqueue(connection, initial);
+        return emitter;
+    }
+
+    public void publishNotification(String recipientKey, String message, LocalDateTime timestamp, long unreadCount) {
+        long id = sequence.incrementAndGet();
+        Map<String, Object> data = new HashMap<>();
+        // The row is still in the write-behind queue, so there is no notification id yet
+        data.put("eventId", id);
+        data.put("message", message);
+        data.put("timestamp", timestamp.toString());
+        data.put("read", false);
+        StreamEvent event = new StreamEvent(id, "notification", data, System.currentTimeMillis());
+
+        // Appended inside compute so the heartbeat cannot drop the buffer between lookup and append
+        recentEvents.compute(recipientKey, (k, existing) -> {
+            Deque<StreamEvent> recent = existing != null ? existing : new ArrayDeque<>();
+            synchronized (recent) {
+                recent.addLast(event);
+                while (recent.size() > replaySize) {
+                    recent.removeFirst();
+                }
+            }
+            return recent;
+        });
+        publish(recipientKey, List.of(event, unreadCountEvent(unreadCount)));
+    }
+
+    public void publishUnreadCount(String recipientKey, long unreadCount) {
+        publish(recipientKey, List.of(unreadCountEvent(unreadCount)));
+    }
+
+    private StreamEvent unreadCountEvent(long unreadCount) {
+        return new StreamEvent(sequence.incrementAndGet(), "unread-count", Map.of("count", unreadCount), System.currentTimeMillis());
+    }
+
+    private void publish(String recipientKey, List<StreamEvent> events) {
+        Set<Connection> set = emitters.get(recipientKey);
+        if (set == null) {
+            return;
+        }
+        set.forEach(connection -> enqueue(connection, events));
+    }
+
+    private void enqueue(Connection connection, List<StreamEvent> events) {
+        if (connection.closed) {
+            return;
+        }
+        for (StreamEvent event : events) {
+            if (!connection.pending.offer(event)) {
+                // Too far behind: close it, the client reconnects with Last-Event-ID
+                slowClosed.increment();
+                removeEmitter(connection);
+                connection.emitter.complete();
+                return;
+            }
+        }
+        if (connection.draining.compareAndSet(false, true)) {
+            sender.execute(() -> drain(connection));
+        }
+    }
+
+    // One drain per connection at a time, so its events go out in order
+    private void drain(Connection connection) {
+        do {
+            StreamEvent event;
+            while (!connection.closed && (event = connection.pending.poll()) != null) {
+                send(connection, event);
+            }
+            connection.draining.set(false);
+        } while (!connection.closed && !connection.pending.isEmpty() && connection.draining.compareAndSet(false, true));
+    }
+
+    private void send(Connection connection, StreamEvent event) {
+        try {
+            if (event == HEARTBEAT) {
+                connection.emitter.send(SseEmitter.event().comment("heartbeat"));
+                return;
+            }
+            connection.emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.id()))
+                    .name(event.name())
+                    .data(event.data(), MediaType.APPLICATION_JSON));
+            eventsSent.increment();
+        } catch (IOException | IllegalStateException e) {
+            sendFailures.increment();
+            removeEmitter(connection);
+        }
+    }
+
+    private void removeEmitter(Connection connection) {
+        connection.closed = true;
+        connection.pending.clear();
+        emitters.computeIfPresent(connection.recipientKey, (k, set) -> {
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    // Keeps idle connections open through proxies and detects clients that went away
+    @Scheduled(fixedDelayString = "${notification.stream.heartbeat-ms:25000}")
+    public void heartbeat() {
+        emitters.values().forEach(set -> set.forEach(connection -> enqueue(connection, List.of(HEARTBEAT))));
+        // Replay buffers only matter for clients that are about to reconnect
+        long cutoff = System.currentTimeMillis() - replayRetentionMillis;
+        for (String key : recentEvents.keySet()) {
+            recentEvents.computeIfPresent(key, (k, recent) -> {
+                if (emitters.containsKey(k)) {
+                    return recent;
+                }
+                synchronized (recent) {
+                    StreamEvent newest = recent.peekLast();
+                    return newest == null || newest.createdAt() < cutoff ? null : recent;
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        emitters.values().forEach(set -> set.forEach(connection -> connection.emitter.complete()));
+        sender.shutdown();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "notificationStream";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("recipients", (long) emitters.size());
+        stats.put("connections", emitters.values().stream().mapToLong(Set::size).sum());
+        stats.put("connects", connects.sum());
+        stats.put("eventsSent", eventsSent.sum());
+        stats.put("replayed", replayed.sum());
+        stats.put("sendFailures", sendFailures.sum());
+        stats.put("slowClosed", slowClosed.sum());
+        stats.put("pending", emitters.values().stream()
+                .flatMap(Set::stream).mapToLong(connection -> connection.pending.size()).sum());
+        return stats;
+    }
+}
@@ -0,0 +1,226 @@
+package org.spring.loginregistration.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind queue for notification inserts. Request threads only enqueue; a single
+ * background thread collects up to batch-size rows (or whatever arrived within the flush
+ * interval) and writes them with one JDBC batch.
+ *
+ * The queue is bounded. If it stays full for longer than the offer timeout the caller
+ * writes its row directly, which slows producers down instead of dropping notifications.
+ * Anything still queued on shutdown is flushed before the data source closes.
+ */
+@Component
+public class NotificationWriter implements StatsProvider {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notification (message, is_read, timestamp, user_id, doctor_id) VALUES (?, ?, ?, ?, ?)";
+
+    /** A notification waiting to be inserted; exactly one of userId / doctorId is set. */
+    public record PendingNotification(Long userId, Long doctorId, String message, LocalDateTime timestamp) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<PendingNotification> queue;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private Thread flusher;
+    private volatile boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final AtomicLong pending = new AtomicLong(); // accepted by enqueue, not yet inserted or dropped
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder directWrites = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushMillisTotal = new LongAdder();
+    private final AtomicLong flushMillisMax = new AtomicLong();
+    private volatile long lastFlushMillis;
+
+    public NotificationWriter(JdbcTemplate jdbcTemplate,
+                              @Value("${notification.writer.capacity:10000}") int capacity,
+                              @Value("${notification.writer.batch-size:200}") int batchSize,
+                              @Value("${notification.writer.flush-interval-ms:200}") long flushIntervalMillis,
+                              @Value("${notification.writer.offer-timeout-ms:50}") long offerTimeoutMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher = new Thread(this::runFlusher, "notification-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    public void enqueue(PendingNotification notification) {
+        pending.incrementAndGet();
+        enqueued.increment();
+        try {
+            if (running && queue.offer(notification, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Queue full (or shutting down): write on the caller's thread
+        directWrites.increment();
+        flush(List.of(notification));
+    }
+
+    private void runFlusher() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PendingNotification first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.currentTimeMillis() + flushIntervalMillis;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingNotification next = queue.poll(remaining, TimeUnit.MILLISECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                // Shutdown interrupted a half-collected batch: write it now, before restoring the
+                // flag, since an interrupted thread cannot borrow a pooled connection
+                flush(batch);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                System.err.println("❌ Notification flush loop error: " + e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingNotification> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            insert(batch);
+        } catch (Exception e) {
+            // One bad row (e.g. a deleted recipient) must not lose the whole batch
+            System.err.println("❌ Notification batch insert failed, retrying row by row: " + e.getMessage());
+            for (PendingNotification notification : batch) {
+                try {
+                    insert(List.of(notification));
+                } catch (Exception rowError) {
+                    failed.increment();
+                    System.err.println("❌ Dropping notification: " + rowError.getMessage());
+                }
+            }
+        }
+        pending.addAndGet(-batch.size());
+        long elapsed = System.currentTimeMillis() - start;
+        lastFlushMillis = elapsed;
+        flushMillisTotal.add(elapsed);
+        flushMillisMax.accumulateAndGet(elapsed, Math::max);
+        batches.increment();
+    }
+
+    private void insert(List<PendingNotification> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, n) -> {
+            ps.setString(1, n.message());
+            ps.setBoolean(2, false);
+            ps.setTimestamp(3, Timestamp.valueOf(n.timestamp()));
+            if (n.userId() != null) {
+                ps.setLong(4, n.userId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            if (n.doctorId() != null) {
+                ps.setLong(5, n.doctorId());
+            } else {
+                ps.setNull(5, Types.BIGINT);
+            }
+        });
+        written.add(rows.size());
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /** Notifications not in the table yet: queued, or taken by the flusher and not yet written. */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    /** Increases on every enqueue; lets a reader tell whether anything arrived in between. */
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            flusher.join(5000);
+        }
+        List<PendingNotification> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        for (int i = 0; i < remaining.size(); i += batchSize) {
+            flush(remaining.subList(i, Math.min(i + batchSize, remaining.size())));
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "notificationWriter";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        long batchCount = batches.sum();
+        stats.put("queueDepth", (long) getQueueDepth());
+        stats.put("pending", pending.get());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("written", written.sum());
+        stats.put("batches", batchCount);
+        stats.put("directWrites", directWrites.sum());
+        stats.put("failed", failed.sum());
+        stats.put("flushMillisLast", lastFlushMillis);
+        stats.put("flushMillisMax", flushMillisMax.get());
+        stats.put("flushMillisAvg", batchCount == 0 ? 0 : flushMillisTotal.sum() / batchCount);
+        return stats;
+    }
+}
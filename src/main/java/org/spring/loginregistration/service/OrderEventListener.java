@@ -0,0 +1,68 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.model.OrderStatus;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Side effects of placing or updating orders, kept off the request thread. Runs on the async
+ * executor after the order change has committed, so a rolled-back change never notifies anyone.
+ */
+@Component
+public class OrderEventListener {
+
+    private final NotificationService notificationService;
+    private final DeliveryEtaService deliveryEtaService;
+    private final DailyRollupService rollups;
+
+    public OrderEventListener(NotificationService notificationService, DeliveryEtaService deliveryEtaService,
+                              DailyRollupService rollups) {
+        this.notificationService = notificationService;
+        this.deliveryEtaService = deliveryEtaService;
+        this.rollups = rollups;
+    }
+
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        notificationService.createUserNotifications(Map.of(event.userId(),
+                "Order #" + event.orderId() + " placed successfully! Estimated delivery: " + event.estimatedTime()));
+        LocalDate day = event.orderDate().toLocalDate();
+        rollups.record(DailyRollupService.ORDERS_PLACED, day, 1);
+        rollups.record(DailyRollupService.REVENUE_PAISE, day, Math.round(event.totalAmount() * 100));
+    }
+
+    // One notification per order (each fits the message column), written as a single batch;
+    // deliveries also feed the ETA histograms, and every transition the daily rollups
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        List<NotificationService.UserMessage> messages = new ArrayList<>();
+        List<Long> delivered = new ArrayList<>();
+        LocalDate day = event.changedAt().toLocalDate();
+        for (OrderStatusChangedEvent.Transition transition : event.transitions()) {
+            rollups.record(DailyRollupService.orderStatus(transition.status()), day, 1);
+            if (OrderStatus.DELIVERED.name().equals(transition.status())) {
+                delivered.add(transition.orderId());
+            }
+            if (transition.userId() == null) {
+                continue;
+            }
+            messages.add(new NotificationService.UserMessage(transition.userId(),
+                    "Your medicine order #" + transition.orderId() + " is now " + transition.status()));
+        }
+        if (!messages.isEmpty()) {
+            notificationService.createUserNotifications(messages);
+        }
+        if (!delivered.isEmpty()) {
+            deliveryEtaService.recordDelivered(delivered, event.changedAt());
+        }
+    }
+}
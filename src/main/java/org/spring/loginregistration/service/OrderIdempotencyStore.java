@@ -0,0 +1,120 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.cache.ExpiringCache;
+import org.spring.loginregistration.exception.ConflictException;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers which order an Idempotency-Key produced, per user, for ttl-minutes. The first
+ * request with a key claims it and records the order id once saved; a retry with the same key
+ * gets that id back, waiting for the first request if it is still running. Reusing a key for a
+ * different cart is rejected. Bounded by max-size like the other ExpiringCaches.
+ */
+@Component
+public class OrderIdempotencyStore implements StatsProvider {
+
+    private static final int MAX_KEY_LENGTH = 128;
+
+    private record Entry(String fingerprint, CompletableFuture<Long> orderId) {
+    }
+
+    /** Result of claiming a key; exactly one caller per key is the owner and must complete or fail it. */
+    public final class Claim {
+        private final String cacheKey;
+        private final Entry entry;
+        private final boolean owner;
+
+        private Claim(String cacheKey, Entry entry, boolean owner) {
+            this.cacheKey = cacheKey;
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        public boolean isOwner() {
+            return owner;
+        }
+
+        public void complete(Long orderId) {
+            entry.orderId().complete(orderId);
+        }
+
+        // Forget the key so the client can retry with it
+        public void fail() {
+            entries.compute(cacheKey, existing -> existing == entry ? null : existing, System.currentTimeMillis() + ttlMillis);
+            entry.orderId().completeExceptionally(new IllegalStateException("order failed"));
+        }
+
+        /** The order id recorded by the owner. */
+        public Long awaitOrderId() {
+            try {
+                return entry.orderId().get(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new ConflictException("An order with this Idempotency-Key is still being processed");
+            } catch (ExecutionException e) {
+                throw new ConflictException("The first request with this Idempotency-Key failed, please retry");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ConflictException("Interrupted while waiting for the original order");
+            }
+        }
+    }
+
+    private final ExpiringCache<String, Entry> entries;
+    private final long ttlMillis;
+    private final long waitMillis;
+
+    private final LongAdder claims = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+
+    public OrderIdempotencyStore(@Value("${order.idempotency.max-size:100000}") int maxSize,
+                                 @Value("${order.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                                 @Value("${order.idempotency.wait-ms:5000}") long waitMillis) {
+        this.entries = new ExpiringCache<>(maxSize);
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.waitMillis = waitMillis;
+    }
+
+    public Claim claim(Long userId, String key, String fingerprint) {
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+        String cacheKey = userId + ":" + key;
+        Entry mine = new Entry(fingerprint, new CompletableFuture<>());
+        Entry entry = entries.compute(cacheKey, existing -> existing != null ? existing : mine,
+                System.currentTimeMillis() + ttlMillis);
+        if (entry == mine) {
+            claims.increment();
+            return new Claim(cacheKey, entry, true);
+        }
+        if (!entry.fingerprint().equals(fingerprint)) {
+            mismatches.increment();
+            throw new ConflictException("This Idempotency-Key was already used for a different order");
+        }
+        replays.increment();
+        return new Claim(cacheKey, entry, false);
+    }
+
+    @Override
+    public String getStatsName() {
+        return "orderIdempotency";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = entries.getStats();
+        stats.put("claims", claims.sum());
+        stats.put("replays", replays.sum());
+        stats.put("mismatches", mismatches.sum());
+        return stats;
+    }
+}
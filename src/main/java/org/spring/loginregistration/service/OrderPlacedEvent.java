@@ -0,0 +1,8 @@
+package org.spring.loginregistration.service;
+
+import java.time.LocalDateTime;
+
+/** Published inside the order transaction; listeners act on it only after the commit. */
+public record OrderPlacedEvent(Long orderId, Long userId, String estimatedTime, double totalAmount,
+                               LocalDateTime orderDate) {
+}
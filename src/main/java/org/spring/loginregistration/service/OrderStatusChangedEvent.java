@@ -0,0 +1,11 @@
+package org.spring.loginregistration.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/** Orders whose status changed in one transaction; listeners notify patients after the commit. */
+public record OrderStatusChangedEvent(List<Transition> transitions, LocalDateTime changedAt) {
+
+    public record Transition(Long orderId, Long userId, String status) {
+    }
+}
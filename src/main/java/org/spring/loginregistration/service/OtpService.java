@@ -1,18 +1,43 @@
 package org.spring.loginregistration.service;
 
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 
 @Service
-public class OtpService {
+public class OtpService implements StatsProvider {
+
+    private final OtpStore otpStore; // Email -> OTP, in memory or in the database (otp.store)
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlMillis;
+    private final int maxAttempts;
+    private final long lockoutMillis;
 
-    private final Map<String, String> otpStorage = new HashMap<>(); // Email -> OTP
+    private final LongAdder sweeps = new LongAdder();
+    private final LongAdder swept = new LongAdder();
+    private final LongAdder lockedRejections = new LongAdder();
+
+    public OtpService(OtpStore otpStore,
+                      @Value("${otp.ttl-minutes:10}") long ttlMinutes,
+                      @Value("${otp.max-attempts:5}") int maxAttempts,
+                      @Value("${otp.lockout-minutes:15}") long lockoutMinutes) {
+        this.otpStore = otpStore;
+        this.ttlMillis = ttlMinutes * 60_000;
+        this.maxAttempts = maxAttempts;
+        this.lockoutMillis = lockoutMinutes * 60_000;
+    }
 
     public String generateOtp(String email) {
-        String otp = String.format("%06d", new Random().nextInt(999999));
-        otpStorage.put(email, otp);
+        String otp = String.format("%06d", random.nextInt(1_000_000));
+        if (!otpStore.save(email, otp, System.currentTimeMillis() + ttlMillis)) {
+            throw new RuntimeException("Too many invalid attempts. Please try again later.");
+        }
         
         // PRINT TO CONSOLE FOR TESTING
         System.out.println("************************************************");
@@ -23,10 +48,36 @@ public class OtpService {
     }
 
     public boolean verifyOtp(String email, String otp) {
-        return otp.equals(otpStorage.get(email));
+        OtpStore.Result result = otpStore.verify(email, otp, maxAttempts, lockoutMillis);
+        if (result == OtpStore.Result.LOCKED) {
+            lockedRejections.increment();
+            throw new RuntimeException("Too many invalid attempts. Please try again later.");
+        }
+        return result == OtpStore.Result.VALID;
     }
 
     public void clearOtp(String email) {
-        otpStorage.remove(email);
+        otpStore.remove(email);
+    }
+
+    @Scheduled(fixedDelayString = "${otp.sweep-interval-ms:60000}")
+    public void sweepExpired() {
+        swept.add(otpStore.purgeExpired());
+        sweeps.increment();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "otp";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("liveEntries", otpStore.size());
+        stats.put("sweeps", sweeps.sum());
+        stats.put("sweptEntries", swept.sum());
+        stats.put("lockedRejections", lockedRejections.sum());
+        return stats;
     }
 }
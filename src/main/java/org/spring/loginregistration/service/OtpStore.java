@@ -0,0 +1,30 @@
+package org.spring.loginregistration.service;
+
+/**
+ * Storage behind {@link OtpService}. Implementations must make {@link #save} and
+ * {@link #verify} atomic per email so concurrent requests cannot race the attempt counter.
+ */
+public interface OtpStore {
+
+    enum Result { VALID, INVALID, LOCKED }
+
+    /**
+     * Stores a new OTP for the email. Returns false while the email is locked out. Wrong guesses
+     * against the previous OTP still count until it expires, so re-requesting a code does not
+     * reset the attempt counter.
+     */
+    boolean save(String email, String otp, long expiresAt);
+
+    /**
+     * Checks the OTP. A wrong guess counts as an attempt; after maxAttempts the email
+     * is locked until now + lockMillis and any pending OTP is discarded.
+     */
+    Result verify(String email, String otp, int maxAttempts, long lockMillis);
+
+    void remove(String email);
+
+    /** Drops expired OTPs and finished lockouts, returns the number removed. */
+    int purgeExpired();
+
+    long size();
+}
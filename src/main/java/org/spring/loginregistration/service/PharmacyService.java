@@ -1,65 +1,171 @@
 package org.spring.loginregistration.service;
 
+import org.spring.loginregistration.dto.MedicineSuggestion;
+import org.spring.loginregistration.dto.OrderPage;
+import org.spring.loginregistration.dto.OrderStatusChange;
+import org.spring.loginregistration.dto.OrderStatusResult;
 import org.spring.loginregistration.dto.PharmacyOrderResponse;
+import org.spring.loginregistration.exception.ConflictException;
 import org.spring.loginregistration.model.Medicine;
+import org.spring.loginregistration.model.OrderStatus;
 import org.spring.loginregistration.model.PharmacyOrder;
 import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.repository.MedicineRepository;
 import org.spring.loginregistration.repository.PharmacyOrderRepository;
-import org.spring.loginregistration.repository.UserRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
 public class PharmacyService {
     private final MedicineRepository medicineRepository;
     private final PharmacyOrderRepository orderRepository;
-    private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final PrincipalSnapshotCache principalCache;
+    private final MedicineCatalog medicineCatalog;
+    private final MedicineSearchIndex medicineSearchIndex;
+    private final OrderIdempotencyStore idempotencyStore;
+    private final DeliveryEtaService deliveryEtaService;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultOrderPageSize;
+    private final int maxOrderPageSize;
+    private final int maxBulkStatusChanges;
+
+    private static final String ORDER_NOT_FOUND = "Order not found";
+    private static final List<String> STATUS_NAMES =
+            Arrays.stream(OrderStatus.values()).map(OrderStatus::name).toList();
+    // Compare-and-set on the exact status we validated (legacy strings and null included), one row
+    // per statement so the batch reports which orders this transaction actually moved
+    private static final String MOVE_STATUS_SQL =
+            "UPDATE pharmacy_order SET status = ? WHERE id = ? AND status IS NOT DISTINCT FROM ?";
+    // Per row, so the batch reports which orders this transaction took the reservation from
+    private static final String CLEAR_RESERVATION_SQL =
+            "UPDATE pharmacy_order SET stock_reserved = FALSE WHERE id = ? AND stock_reserved = TRUE";
 
     public PharmacyService(MedicineRepository medicineRepository, PharmacyOrderRepository orderRepository, 
-                           UserRepository userRepository, NotificationService notificationService) {
+                           PrincipalSnapshotCache principalCache, MedicineCatalog medicineCatalog,
+                           MedicineSearchIndex medicineSearchIndex, OrderIdempotencyStore idempotencyStore,
+                           DeliveryEtaService deliveryEtaService, StockService stockService,
+                           TransactionTemplate transactionTemplate, JdbcTemplate jdbcTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${pharmacy.orders.page-size:50}") int defaultOrderPageSize,
+                           @Value("${pharmacy.orders.max-page-size:200}") int maxOrderPageSize,
+                           @Value("${pharmacy.orders.max-bulk-status-changes:1000}") int maxBulkStatusChanges) {
         this.medicineRepository = medicineRepository;
         this.orderRepository = orderRepository;
-        this.userRepository = userRepository;
-        this.notificationService = notificationService;
+        this.principalCache = principalCache;
+        this.medicineCatalog = medicineCatalog;
+        this.medicineSearchIndex = medicineSearchIndex;
+        this.idempotencyStore = idempotencyStore;
+        this.deliveryEtaService = deliveryEtaService;
+        this.stockService = stockService;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.defaultOrderPageSize = defaultOrderPageSize;
+        this.maxOrderPageSize = maxOrderPageSize;
+        this.maxBulkStatusChanges = maxBulkStatusChanges;
     }
 
+    // Served from the in-memory catalog; unknown names still get the default price
     public Map<String, Double> getPrices(List<String> medicineNames) {
-        return medicineNames.stream()
-                .collect(Collectors.toMap(name -> name, name -> medicineRepository.findByName(name).map(Medicine::getPrice).orElse(150.0)));
+        return medicineCatalog.getPrices(medicineNames);
+    }
+
+    public List<MedicineSuggestion> searchMedicines(String query, int limit) {
+        return medicineSearchIndex.search(query, limit);
     }
 
-    public PharmacyOrder placeOrder(Long userId, List<String> medicines, String address, double total) {
-        User user = userRepository.findById(userId).orElseThrow();
+    // Adds a medicine, or re-prices it if the name exists, and updates catalog and search index in place
+    public Medicine saveMedicine(String name, double price) {
+        if (name == null || name.isBlank()) {
+            throw new RuntimeException("Medicine name is required");
+        }
+        if (price < 0) {
+            throw new RuntimeException("Price cannot be negative");
+        }
+        // Matched like the catalog and the import, so re-pricing "paracetamol" updates
+        // "Paracetamol" and keeps its display name
+        Medicine medicine = medicineRepository.findByNormalizedName(MedicineCatalog.normalize(name))
+                .orElseGet(() -> {
+                    Medicine created = new Medicine();
+                    created.setName(name.trim().replaceAll("\\s+", " "));
+                    return created;
+                });
+        medicine.setPrice(price);
+        Medicine saved = medicineRepository.save(medicine);
+        medicineCatalog.put(saved.getName(), saved.getPrice());
+        medicineSearchIndex.add(saved.getName());
+        return saved;
+    }
+
+    public void setStock(String name, Integer stock) {
+        stockService.setStock(name, stock);
+    }
+
+    /**
+     * Places an order. With an idempotency key, a retry of the same cart returns the order the
+     * first request created instead of placing another one.
+     */
+    public PharmacyOrder placeOrder(Long userId, String idempotencyKey, List<String> medicines, String address, double total) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return createOrder(userId, medicines, address, total);
+        }
+        OrderIdempotencyStore.Claim claim = idempotencyStore.claim(userId, idempotencyKey.trim(),
+                medicines + "|" + address + "|" + total);
+        if (!claim.isOwner()) {
+            Long orderId = claim.awaitOrderId();
+            return orderRepository.findById(orderId).orElseThrow(() -> new RuntimeException("Order not found"));
+        }
+        try {
+            PharmacyOrder saved = createOrder(userId, medicines, address, total);
+            claim.complete(saved.getId());
+            return saved;
+        } catch (RuntimeException e) {
+            claim.fail();
+            throw e;
+        }
+    }
+
+    // The request pays for the stock reservation and the insert; the notification is sent after commit by OrderEventListener
+    private PharmacyOrder createOrder(Long userId, List<String> medicines, String address, double total) {
         PharmacyOrder order = new PharmacyOrder();
-        order.setUser(user);
+        order.setUser(principalCache.userReference(userId));
         order.setMedicines(medicines);
         order.setDeliveryAddress(address);
         order.setTotalAmount(total);
-        order.setStatus("PENDING");
+        order.setStatus(OrderStatus.PENDING.name());
         order.setOrderDate(LocalDateTime.now());
-        
-        int hours = new Random().nextInt(3) + 2;
-        order.setEstimatedTime(hours + "-" + (hours + 1) + " Hours");
-        
-        PharmacyOrder saved = orderRepository.save(order);
-        notificationService.createNotification(user, "Order #" + saved.getId() + " placed successfully! Estimated delivery: " + saved.getEstimatedTime());
-        return saved;
+        order.setEstimatedTime(deliveryEtaService.estimate(address, order.getOrderDate()));
+
+        return transactionTemplate.execute(status -> {
+            order.setStockReserved(stockService.reserve(medicines));
+            PharmacyOrder saved = orderRepository.save(order);
+            eventPublisher.publishEvent(new OrderPlacedEvent(saved.getId(), userId, saved.getEstimatedTime(),
+                    saved.getTotalAmount(), saved.getOrderDate()));
+            return saved;
+        });
     }
 
     // UPDATED FOR PATIENT
     public List<PharmacyOrderResponse> getMyOrders(Long userId) {
-        User user = userRepository.findById(userId).orElseThrow();
+        String username = principalCache.getUser(userId).getUsername();
+        User user = principalCache.userReference(userId);
         return orderRepository.findByUserOrderByIdDesc(user).stream()
                 .map(order -> new PharmacyOrderResponse(
                         order.getId(),
-                        order.getUser() != null ? order.getUser().getUsername() : "You",
+                        username != null ? username : "You",
                         order.getMedicines(),
                         order.getTotalAmount(),
                         order.getDeliveryAddress(),
@@ -70,27 +176,156 @@ public class PharmacyService {
                 .collect(Collectors.toList());
     }
 
-    // UPDATED FOR ADMIN
     public List<PharmacyOrderResponse> getAllOrders() {
-        return orderRepository.findAllByOrderByIdDesc().stream()
-                .map(order -> new PharmacyOrderResponse(
-                        order.getId(),
-                        order.getUser() != null ? order.getUser().getUsername() : "Unknown Patient",
-                        order.getMedicines(),
-                        order.getTotalAmount(),
-                        order.getDeliveryAddress(),
-                        order.getStatus(),
-                        order.getOrderDate(),
-                        order.getEstimatedTime()
-                ))
-                .collect(Collectors.toList());
+        List<PharmacyOrderResponse> orders = new ArrayList<>();
+        Long cursor = null;
+        do {
+            OrderPage page = getOrders(null, null, null, cursor, maxOrderPageSize);
+            orders.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return orders;
+    }
+
+    /**
+     * One page of all orders for the back office, newest first, optionally filtered by status
+     * and order date (inclusive). Two queries per page: the orders joined to their patient,
+     * then the medicines of exactly those orders.
+     */
+    public OrderPage getOrders(String status, LocalDate from, LocalDate to, Long cursor, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultOrderPageSize : Math.min(size, maxOrderPageSize);
+        String statusFilter = status == null || status.isBlank() ? null : OrderStatus.parse(status).name();
+        LocalDateTime start = from != null ? from.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+        LocalDateTime end = to != null ? to.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+
+        List<PharmacyOrderResponse> rows = orderRepository.findOrderPage(cursor != null ? cursor : Long.MAX_VALUE,
+                statusFilter, STATUS_NAMES, start, end, Limit.of(pageSize + 1)); // one extra row tells us whether there is a next page
+        List<PharmacyOrderResponse> items = rows.size() > pageSize ? rows.subList(0, pageSize) : rows;
+        if (!items.isEmpty()) {
+            Map<Long, PharmacyOrderResponse> byId = new HashMap<>();
+            items.forEach(item -> byId.put(item.getId(), item));
+            for (Object[] row : orderRepository.findMedicinesByOrderIds(byId.keySet())) {
+                byId.get((Long) row[0]).getMedicines().add((String) row[1]);
+            }
+        }
+        Long nextCursor = rows.size() > pageSize ? items.get(pageSize - 1).getId() : null;
+        return new OrderPage(items, nextCursor);
     }
 
     public PharmacyOrder updateOrderStatus(Long orderId, String status) {
-        PharmacyOrder order = orderRepository.findById(orderId).orElseThrow();
-        order.setStatus(status);
-        
-        notificationService.createNotification(order.getUser(), "Your medicine order #" + order.getId() + " is now " + status);
-        return orderRepository.save(order);
+        OrderStatusResult result = updateOrderStatuses(List.of(new OrderStatusChange(orderId, status)));
+        String reason = result.getRejected().get(orderId);
+        if (reason != null) {
+            throw reason.equals(ORDER_NOT_FOUND) ? new RuntimeException(reason) : new ConflictException(reason);
+        }
+        return orderRepository.findById(orderId).orElseThrow(() -> new RuntimeException(ORDER_NOT_FOUND));
+    }
+
+    /**
+     * Moves many orders through the OrderStatus lifecycle at once. Changes are grouped by target
+     * status and applied with one conditional UPDATE per target; orders that are missing or not in
+     * an allowed source status are reported back instead of failing the whole request. Patients are
+     * notified after the commit, in one batch.
+     */
+    public OrderStatusResult updateOrderStatuses(List<OrderStatusChange> changes) {
+        if (changes == null || changes.isEmpty()) {
+            throw new RuntimeException("No status changes given");
+        }
+        if (changes.size() > maxBulkStatusChanges) {
+            throw new RuntimeException("At most " + maxBulkStatusChanges + " status changes per request");
+        }
+        Map<Long, OrderStatus> targets = new LinkedHashMap<>();
+        for (OrderStatusChange change : changes) {
+            if (change.getOrderId() == null || change.getStatus() == null) {
+                throw new RuntimeException("Each change needs an orderId and a status");
+            }
+            targets.put(change.getOrderId(), OrderStatus.parse(change.getStatus())); // last one wins
+        }
+
+        return transactionTemplate.execute(tx -> {
+            Map<Long, Object[]> current = new HashMap<>();
+            for (Object[] row : orderRepository.findStatuses(targets.keySet())) {
+                current.put((Long) row[0], row);
+            }
+            Map<Long, String> rejected = new LinkedHashMap<>();
+            Map<OrderStatus, List<Long>> idsByTarget = new EnumMap<>(OrderStatus.class);
+            targets.forEach((orderId, target) -> {
+                Object[] row = current.get(orderId);
+                if (row == null) {
+                    rejected.put(orderId, ORDER_NOT_FOUND);
+                } else if (!target.allowedFrom().contains(currentStatus((String) row[2]))) {
+                    rejected.put(orderId, "Order #" + orderId + " cannot move from " + row[2] + " to " + target);
+                } else {
+                    idsByTarget.computeIfAbsent(target, t -> new ArrayList<>()).add(orderId);
+                }
+            });
+
+            List<Long> updated = new ArrayList<>();
+            List<OrderStatusChangedEvent.Transition> transitions = new ArrayList<>();
+            idsByTarget.forEach((target, ids) -> {
+                int[] counts = jdbcTemplate.batchUpdate(MOVE_STATUS_SQL, ids, ids.size(), (ps, orderId) -> {
+                    ps.setString(1, target.name());
+                    ps.setLong(2, orderId);
+                    ps.setString(3, (String) current.get(orderId)[2]);
+                })[0];
+                // A row this statement did not change was moved by someone else since we read it,
+                // even if it now happens to be at the target: it is theirs to report and notify
+                List<Long> moved = new ArrayList<>();
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] > 0) {
+                        moved.add(ids.get(i));
+                    } else {
+                        rejected.put(ids.get(i), "Order #" + ids.get(i) + " was changed concurrently");
+                    }
+                }
+                if (target == OrderStatus.CANCELLED) {
+                    releaseStock(moved);
+                }
+                for (Long orderId : moved) {
+                    updated.add(orderId);
+                    transitions.add(new OrderStatusChangedEvent.Transition(orderId, (Long) current.get(orderId)[1], target.name()));
+                }
+            });
+            if (!transitions.isEmpty()) {
+                eventPublisher.publishEvent(new OrderStatusChangedEvent(transitions, LocalDateTime.now()));
+            }
+            return new OrderStatusResult(updated, rejected);
+        });
+    }
+
+    /**
+     * Gives back the stock that cancelled orders had reserved, in the cancelling transaction.
+     * Only orders whose stock_reserved flag this call cleared are released, so a second cancel
+     * of the same order (a double click, or two bulk requests racing) never returns it twice.
+     */
+    private void releaseStock(List<Long> cancelled) {
+        if (cancelled.isEmpty()) {
+            return;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(CLEAR_RESERVATION_SQL, cancelled, cancelled.size(),
+                (ps, id) -> ps.setLong(1, id))[0];
+        List<Long> reserved = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                reserved.add(cancelled.get(i));
+            }
+        }
+        if (reserved.isEmpty()) {
+            return;
+        }
+        List<String> medicines = new ArrayList<>();
+        for (Object[] row : orderRepository.findMedicinesByOrderIds(reserved)) {
+            medicines.add((String) row[1]);
+        }
+        stockService.release(medicines);
+    }
+
+    // Statuses written before the lifecycle existed are treated as PENDING
+    private static OrderStatus currentStatus(String status) {
+        try {
+            return status == null ? OrderStatus.PENDING : OrderStatus.parse(status);
+        } catch (RuntimeException e) {
+            return OrderStatus.PENDING;
+        }
     }
 }
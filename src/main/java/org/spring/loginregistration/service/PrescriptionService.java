@@ -9,7 +9,10 @@ import org.spring.loginregistration.repository.UserRepository;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.TreeSet;
 
 @Service
 public class PrescriptionService {
@@ -18,16 +21,22 @@ public class PrescriptionService {
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
     private final NotificationService notificationService;
+    private final ReminderScheduler reminderScheduler;
+    private final MedicationTrackerService trackerService;
 
     public PrescriptionService(PrescriptionRepository prescriptionRepository, UserRepository userRepository, 
-                               DoctorRepository doctorRepository, NotificationService notificationService) {
+                               DoctorRepository doctorRepository, NotificationService notificationService,
+                               ReminderScheduler reminderScheduler, MedicationTrackerService trackerService) {
         this.prescriptionRepository = prescriptionRepository;
         this.userRepository = userRepository;
         this.doctorRepository = doctorRepository;
         this.notificationService = notificationService;
+        this.reminderScheduler = reminderScheduler;
+        this.trackerService = trackerService;
     }
 
-    public Prescription savePrescription(Long doctorId, Long patientId, List<String> medicines, String diagnoses, String note, LocalDate nextDate) {
+    public Prescription savePrescription(Long doctorId, Long patientId, List<String> medicines, List<LocalTime> doseTimes,
+                                         String diagnoses, String note, LocalDate nextDate) {
         Doctor doctor = doctorRepository.findById(doctorId)
                 .orElseThrow(() -> new RuntimeException("Doctor not found"));
         
@@ -38,11 +47,14 @@ public class PrescriptionService {
         prescription.setDoctor(doctor);
         prescription.setUser(user);
         prescription.setMedicines(medicines);
+        prescription.setDoseTimes(doseTimes == null ? new ArrayList<>() : new ArrayList<>(new TreeSet<>(doseTimes)));
         prescription.setDiagnoses(diagnoses);
         prescription.setNote(note);
         prescription.setNextAppointmentDate(nextDate);
 
         Prescription saved = prescriptionRepository.save(prescription);
+        reminderScheduler.schedule(user.getId(), medicines, saved.getDoseTimes());
+        trackerService.replaceFutureTrackers(user.getId(), medicines);
         
         notificationService.createNotification(user, "Dr. " + doctor.getUserName() + " has sent you a new prescription for " + diagnoses);
         
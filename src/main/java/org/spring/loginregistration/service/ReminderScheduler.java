@@ -0,0 +1,189 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dose reminders for every patient, driven by one ReminderTimingWheel ticked once a minute.
+ *
+ * Each patient's latest prescription contributes one daily entry per dose time, firing
+ * lead-minutes before the dose and listing that prescription's medicines. Writing a new
+ * prescription cancels the patient's previous entries. Due reminders are handed to
+ * NotificationService in batches. On startup the wheel is rebuilt from the database with two
+ * set-based queries. Times are the server's local time; the wheel is ticked with the local
+ * wall clock as an absolute minute, so DST changes neither wrap it nor fire a day at once.
+ */
+@Service
+public class ReminderScheduler implements StatsProvider {
+
+    private static final int MAX_MESSAGE_LENGTH = 255; // notification.message column size
+
+    private static final String LATEST_DOSE_TIMES_SQL =
+            "SELECT p.user_id, d.dose_times FROM prescription p " +
+            "JOIN prescription_dose_times d ON d.prescription_id = p.id " +
+            "WHERE p.id IN (SELECT MAX(id) FROM prescription GROUP BY user_id) " +
+            "AND (p.date IS NULL OR p.date >= :activeSince)";
+    private static final String LATEST_MEDICINES_SQL =
+            "SELECT p.user_id, m.medicines FROM prescription p " +
+            "JOIN prescription_medicines m ON m.prescription_id = p.id " +
+            "WHERE p.id IN (SELECT MAX(id) FROM prescription GROUP BY user_id) " +
+            "AND (p.date IS NULL OR p.date >= :activeSince)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NotificationService notificationService;
+    private final boolean enabled;
+    private final int leadMinutes;
+    private final int batchSize;
+    private final int activeDays;
+
+    private final Object lock = new Object();
+    private final ReminderTimingWheel wheel;
+    private final Map<Long, List<ReminderTimingWheel.Entry>> entriesByUser = new ConcurrentHashMap<>();
+
+    private final LongAdder fired = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public ReminderScheduler(NamedParameterJdbcTemplate jdbcTemplate, NotificationService notificationService,
+                             @Value("${reminder.enabled:true}") boolean enabled,
+                             @Value("${reminder.lead-minutes:5}") int leadMinutes,
+                             @Value("${reminder.batch-size:500}") int batchSize,
+                             @Value("${reminder.active-days:180}") int activeDays,
+                             @Value("${reminder.max-catch-up-minutes:120}") int maxCatchUpMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.notificationService = notificationService;
+        this.enabled = enabled;
+        this.leadMinutes = leadMinutes;
+        this.batchSize = batchSize;
+        this.activeDays = activeDays;
+        this.wheel = new ReminderTimingWheel(currentMinute(), maxCatchUpMinutes);
+    }
+
+    // Local wall-clock minutes since the epoch; its minute of day is the local time of day
+    private static long currentMinute() {
+        return LocalDateTime.now().toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    /** Replaces the patient's reminders with those of a newly written prescription. */
+    public void schedule(Long userId, List<String> medicines, List<LocalTime> doseTimes) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            cancel(userId);
+            addEntries(userId, medicines, doseTimes);
+        }
+    }
+
+    private void cancel(Long userId) {
+        List<ReminderTimingWheel.Entry> previous = entriesByUser.remove(userId);
+        if (previous != null) {
+            previous.forEach(entry -> entry.cancelled = true);
+        }
+    }
+
+    private void addEntries(Long userId, List<String> medicines, List<LocalTime> doseTimes) {
+        if (medicines == null || medicines.isEmpty() || doseTimes == null || doseTimes.isEmpty()) {
+            return;
+        }
+        Set<String> distinct = new LinkedHashSet<>(medicines);
+        String medicineList = String.join(", ", distinct);
+        List<ReminderTimingWheel.Entry> entries = new ArrayList<>();
+        for (LocalTime doseTime : new TreeSet<>(doseTimes)) {
+            int minute = Math.floorMod(doseTime.getHour() * 60 + doseTime.getMinute() - leadMinutes,
+                    ReminderTimingWheel.MINUTES_PER_DAY);
+            String message = "Reminder: time to take " + medicineList + " (" + doseTime + " dose)";
+            if (message.length() > MAX_MESSAGE_LENGTH) {
+                message = "Reminder: time to take your " + distinct.size() + " medicines (" + doseTime + " dose)";
+            }
+            ReminderTimingWheel.Entry entry = new ReminderTimingWheel.Entry(userId, minute, message);
+            wheel.add(entry);
+            entries.add(entry);
+        }
+        entriesByUser.put(userId, entries);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        MapSqlParameterSource params = new MapSqlParameterSource("activeSince",
+                Date.valueOf(LocalDate.now().minusDays(activeDays)));
+        Map<Long, List<LocalTime>> doseTimes = new HashMap<>();
+        jdbcTemplate.query(LATEST_DOSE_TIMES_SQL, params, rs -> {
+            doseTimes.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getTime(2).toLocalTime());
+        });
+        Map<Long, List<String>> medicines = new HashMap<>();
+        if (!doseTimes.isEmpty()) {
+            jdbcTemplate.query(LATEST_MEDICINES_SQL, params, rs -> {
+                if (doseTimes.containsKey(rs.getLong(1))) {
+                    medicines.computeIfAbsent(rs.getLong(1), k -> new ArrayList<>()).add(rs.getString(2));
+                }
+            });
+        }
+        synchronized (lock) {
+            wheel.clear();
+            entriesByUser.clear();
+            doseTimes.forEach((userId, times) -> addEntries(userId, medicines.get(userId), times));
+        }
+        lastRebuildMillis = System.currentTimeMillis() - start;
+        System.out.println("Reminder wheel rebuilt: " + entriesByUser.size() + " patients, "
+                + wheel.size() + " reminders in " + lastRebuildMillis + " ms");
+    }
+
+    @Scheduled(cron = "0 * * * * *")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        List<ReminderTimingWheel.Entry> due;
+        synchronized (lock) {
+            due = wheel.advanceTo(currentMinute());
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            // One notification per dose; merging a patient's doses could overflow the message column
+            List<NotificationService.UserMessage> batch = new ArrayList<>();
+            for (ReminderTimingWheel.Entry entry : due.subList(from, Math.min(from + batchSize, due.size()))) {
+                batch.add(new NotificationService.UserMessage(entry.userId, entry.message));
+            }
+            notificationService.createUserNotifications(batch);
+            batches.increment();
+        }
+        fired.add(due.size());
+    }
+
+    @Override
+    public String getStatsName() {
+        return "reminders";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("patients", (long) entriesByUser.size());
+        synchronized (lock) {
+            stats.put("wheelEntries", (long) wheel.size());
+        }
+        stats.put("fired", fired.sum());
+        stats.put("batches", batches.sum());
+        stats.put("lastRebuildMillis", lastRebuildMillis);
+        return stats;
+    }
+}
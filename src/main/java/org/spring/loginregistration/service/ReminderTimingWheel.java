@@ -0,0 +1,154 @@
+package org.spring.loginregistration.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Two-level hashed timing wheel for reminders that repeat every day at a fixed minute.
+ *
+ * The minute wheel has 60 slots for the current hour; the hour wheel has 24 slots, one per
+ * hour of the day. An entry sits in the hour wheel until its hour starts, is then cascaded
+ * into the minute wheel, fires on its minute and goes back into the hour wheel for the next
+ * day. Each tick only touches the slots it passes, so the cost does not depend on how many
+ * reminders exist, and there is no scheduled task per dose.
+ *
+ * The wheel is driven by an absolute minute counter (minutes since the epoch of the local wall
+ * clock) rather than a minute of day, so a clock that goes backwards (DST fall-back, an NTP
+ * step) means "no steps" instead of wrapping round a whole day. Forward catch-up is capped at
+ * maxCatchUpMinutes: after a longer gap only the most recent minutes fire, the rest are skipped.
+ *
+ * Not thread-safe; ReminderScheduler guards it with a lock.
+ */
+class ReminderTimingWheel {
+
+    static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** A daily reminder; cancelled entries are dropped lazily the next time they are reached. */
+    static final class Entry {
+        final long userId;
+        final int minuteOfDay;
+        final String message;
+        volatile boolean cancelled;
+
+        Entry(long userId, int minuteOfDay, String message) {
+            this.userId = userId;
+            this.minuteOfDay = minuteOfDay;
+            this.message = message;
+        }
+    }
+
+    private final List<List<Entry>> minuteSlots = newSlots(60);
+    private final List<List<Entry>> hourSlots = newSlots(24);
+    private final int maxCatchUpMinutes;
+    private long currentMinute; // last absolute minute that has been processed
+    private int size;
+
+    ReminderTimingWheel(long startMinute, int maxCatchUpMinutes) {
+        this.currentMinute = startMinute;
+        this.maxCatchUpMinutes = maxCatchUpMinutes;
+    }
+
+    private int currentMinuteOfDay() {
+        return (int) Math.floorMod(currentMinute, (long) MINUTES_PER_DAY);
+    }
+
+    private static List<List<Entry>> newSlots(int count) {
+        List<List<Entry>> slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(new ArrayList<>());
+        }
+        return slots;
+    }
+
+    void add(Entry entry) {
+        place(entry);
+        size++;
+    }
+
+    // Still ahead within the current hour: minute wheel; otherwise wait in the hour wheel
+    private void place(Entry entry) {
+        int hour = entry.minuteOfDay / 60;
+        int now = currentMinuteOfDay();
+        if (hour == now / 60 && entry.minuteOfDay > now) {
+            minuteSlots.get(entry.minuteOfDay % 60).add(entry);
+        } else {
+            hourSlots.get(hour).add(entry);
+        }
+    }
+
+    /**
+     * Advances the wheel up to and including the given absolute minute and returns the entries
+     * that came due, in firing order. Catches up missed ticks, at most maxCatchUpMinutes of them;
+     * a target at or before the current minute does nothing.
+     */
+    List<Entry> advanceTo(long targetMinute) {
+        List<Entry> due = new ArrayList<>();
+        if (targetMinute <= currentMinute) {
+            return due; // clock went back, or this minute was already processed
+        }
+        if (targetMinute - currentMinute > maxCatchUpMinutes) {
+            skipTo(targetMinute - maxCatchUpMinutes);
+        }
+        while (currentMinute < targetMinute) {
+            currentMinute++;
+            int minuteOfDay = currentMinuteOfDay();
+            if (minuteOfDay % 60 == 0) {
+                cascade(minuteOfDay / 60);
+            }
+            List<Entry> slot = minuteSlots.get(minuteOfDay % 60);
+            for (Entry entry : slot) {
+                if (entry.cancelled) {
+                    size--;
+                } else {
+                    due.add(entry);
+                    hourSlots.get(entry.minuteOfDay / 60).add(entry); // same time tomorrow
+                }
+            }
+            slot.clear();
+        }
+        return due;
+    }
+
+    // A new hour started: move its entries into the minute wheel, firing any on minute 0 right away
+    private void cascade(int hour) {
+        List<Entry> slot = hourSlots.get(hour);
+        List<Entry> moving = new ArrayList<>(slot);
+        slot.clear();
+        for (Entry entry : moving) {
+            if (entry.cancelled) {
+                size--;
+            } else {
+                minuteSlots.get(entry.minuteOfDay % 60).add(entry);
+            }
+        }
+    }
+
+    // Moves the clock without firing: every live entry is placed again relative to the new minute
+    private void skipTo(long minute) {
+        List<Entry> live = new ArrayList<>();
+        for (List<List<Entry>> wheel : List.of(minuteSlots, hourSlots)) {
+            for (List<Entry> slot : wheel) {
+                for (Entry entry : slot) {
+                    if (!entry.cancelled) {
+                        live.add(entry);
+                    }
+                }
+                slot.clear();
+            }
+        }
+        currentMinute = minute;
+        live.forEach(this::place);
+        size = live.size();
+    }
+
+    void clear() {
+        minuteSlots.forEach(List::clear);
+        hourSlots.forEach(List::clear);
+        size = 0;
+    }
+
+    /** Entries held, including cancelled ones not yet reached. */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,169 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.exception.ConflictException;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Medicine inventory. A medicine with a null stock is not tracked and never limits an order.
+ *
+ * Reserving is one conditional UPDATE per medicine (stock = stock - qty where stock >= qty), so
+ * stock can never go negative and concurrent orders only queue on the rows of the medicines
+ * they share. Medicines are updated in name order so two multi-item orders cannot deadlock.
+ * Must run inside the order's transaction: if any medicine is short, the whole order rolls back.
+ *
+ * A striped in-memory cache of recent levels lets orders for a sold-out medicine fail without
+ * touching the database. It is only updated from database reads and after commits, and a read
+ * that may have raced another order's reserve or cancel is not stored.
+ */
+@Service
+public class StockService implements StatsProvider {
+
+    private static final String RESERVE_SQL =
+            "UPDATE medicine SET stock = stock - ? WHERE name = ? AND stock IS NOT NULL AND stock >= ?";
+    private static final String RELEASE_SQL =
+            "UPDATE medicine SET stock = stock + ? WHERE name = ? AND stock IS NOT NULL";
+    private static final String SET_SQL = "UPDATE medicine SET stock = ? WHERE name = ?";
+    private static final String SELECT_SQL = "SELECT stock FROM medicine WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MedicineCatalog medicineCatalog;
+    private final StripedStockCache cache;
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejectedFromCache = new LongAdder();
+    private final LongAdder rejectedFromDatabase = new LongAdder();
+    private final LongAdder released = new LongAdder();
+
+    public StockService(JdbcTemplate jdbcTemplate, MedicineCatalog medicineCatalog,
+                        @Value("${stock.cache.stripes:64}") int stripes,
+                        @Value("${stock.cache.ttl-ms:5000}") long ttlMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.medicineCatalog = medicineCatalog;
+        this.cache = new StripedStockCache(stripes, ttlMillis);
+    }
+
+    /**
+     * Takes the order's medicines out of stock. Returns true if any tracked stock was reserved;
+     * throws ConflictException naming the first medicine that is short.
+     */
+    public boolean reserve(List<String> medicines) {
+        Map<String, Integer> quantities = quantitiesByCatalogName(medicines);
+        for (Map.Entry<String, Integer> item : quantities.entrySet()) {
+            Integer known = cache.getFresh(item.getKey());
+            if (known != null && known < item.getValue()) {
+                rejectedFromCache.increment();
+                throw new ConflictException("Out of stock: " + item.getKey());
+            }
+        }
+        Map<String, Integer> taken = new LinkedHashMap<>();
+        // Registered up front so a later shortage (rollback) still ends the changes begun here
+        onCompletion(taken, -1);
+        for (Map.Entry<String, Integer> item : quantities.entrySet()) {
+            String name = item.getKey();
+            int quantity = item.getValue();
+            if (jdbcTemplate.update(RESERVE_SQL, quantity, name, quantity) == 1) {
+                cache.beginChange(name);
+                taken.put(name, quantity);
+                continue;
+            }
+            // Either not tracked, or not enough left
+            long ticket = cache.ticket(name);
+            Integer stock = currentStock(name);
+            cache.putIfUnchanged(name, stock, ticket);
+            if (stock != null) {
+                rejectedFromDatabase.increment();
+                throw new ConflictException("Out of stock: " + name + " (" + stock + " left)");
+            }
+        }
+        if (taken.isEmpty()) {
+            return false;
+        }
+        reserved.increment();
+        return true;
+    }
+
+    /** Puts the medicines of cancelled orders back; must run inside the cancelling transaction. */
+    public void release(List<String> medicines) {
+        Map<String, Integer> returned = new LinkedHashMap<>();
+        onCompletion(returned, 1);
+        quantitiesByCatalogName(medicines).forEach((name, quantity) -> {
+            if (jdbcTemplate.update(RELEASE_SQL, quantity, name) == 1) {
+                cache.beginChange(name);
+                returned.put(name, quantity);
+            }
+        });
+        if (!returned.isEmpty()) {
+            released.increment();
+        }
+    }
+
+    /** Sets the stock level; null stops tracking the medicine. */
+    public void setStock(String name, Integer stock) {
+        if (stock != null && stock < 0) {
+            throw new RuntimeException("Stock cannot be negative");
+        }
+        MedicineCatalog.CatalogEntry entry = medicineCatalog.find(name);
+        if (entry == null || jdbcTemplate.update(SET_SQL, stock, entry.name()) == 0) {
+            throw new RuntimeException("Medicine not found");
+        }
+        cache.put(entry.name(), stock);
+    }
+
+    public Integer getStock(String name) {
+        MedicineCatalog.CatalogEntry entry = medicineCatalog.find(name);
+        return entry == null ? null : currentStock(entry.name());
+    }
+
+    private Integer currentStock(String name) {
+        List<Integer> rows = jdbcTemplate.query(SELECT_SQL, (rs, i) -> (Integer) rs.getObject(1), name);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Sorted by name (the lock order); medicines unknown to the catalog are not tracked
+    private Map<String, Integer> quantitiesByCatalogName(List<String> medicines) {
+        Map<String, Integer> quantities = new TreeMap<>();
+        for (String medicine : medicines) {
+            MedicineCatalog.CatalogEntry entry = medicineCatalog.find(medicine);
+            if (entry != null) {
+                quantities.merge(entry.name(), 1, Integer::sum);
+            }
+        }
+        return quantities;
+    }
+
+    // Ends the cache changes for the names in changes (filled in later) when the transaction
+    // completes, applying sign * quantity to the cached level only if it committed
+    private void onCompletion(Map<String, Integer> changes, int sign) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                boolean committed = status == STATUS_COMMITTED;
+                changes.forEach((name, quantity) -> cache.endChange(name, committed ? sign * quantity : 0));
+            }
+        });
+    }
+
+    @Override
+    public String getStatsName() {
+        return "stock";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("reserved", reserved.sum());
+        stats.put("rejectedFromCache", rejectedFromCache.sum());
+        stats.put("rejectedFromDatabase", rejectedFromDatabase.sum());
+        stats.put("released", released.sum());
+        stats.put("cachedLevels", (long) cache.size());
+        return stats;
+    }
+}
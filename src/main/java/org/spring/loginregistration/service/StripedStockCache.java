@@ -0,0 +1,132 @@
+package org.spring.loginregistration.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Last known stock per medicine, split into lock stripes so orders for different medicines
+ * never wait on each other. A level read from the database is trusted for ttl-ms; adjustments
+ * made after a commit keep it current but do not extend that window. StockService only uses
+ * it to turn away orders the database would reject anyway, never to accept one.
+ *
+ * Reservations and releases bracket their update with beginChange/endChange. A level read
+ * from the database is only stored if no change to that medicine was in flight and none
+ * started or finished in its stripe since the read began (see ticket()). Otherwise a read
+ * that raced a cancel could store the pre-cancel level after the cancel's adjustment.
+ */
+final class StripedStockCache {
+
+    private record Level(int stock, long loadedAt) {
+    }
+
+    private final Object[] locks;
+    private final List<Map<String, Level>> stripes;
+    private final List<Map<String, Integer>> pending; // uncommitted changes per medicine
+    private final long[] sequences; // bumped on every begin/end of a change in the stripe
+    private final long ttlMillis;
+
+    StripedStockCache(int stripeCount, long ttlMillis) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1) << 1); // power of two
+        this.locks = new Object[size];
+        this.stripes = new ArrayList<>(size);
+        this.pending = new ArrayList<>(size);
+        this.sequences = new long[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+            stripes.add(new HashMap<>());
+            pending.add(new HashMap<>());
+        }
+        this.ttlMillis = ttlMillis;
+    }
+
+    private int stripe(String name) {
+        int h = name.hashCode();
+        return (h ^ (h >>> 16)) & (locks.length - 1);
+    }
+
+    /** The stock level if it was read from the database within the ttl, else null. */
+    Integer getFresh(String name) {
+        int s = stripe(name);
+        synchronized (locks[s]) {
+            Level level = stripes.get(s).get(name);
+            if (level == null || System.currentTimeMillis() - level.loadedAt() > ttlMillis) {
+                return null;
+            }
+            return level.stock();
+        }
+    }
+
+    /** Take before reading a level from the database, and pass to putIfUnchanged. */
+    long ticket(String name) {
+        int s = stripe(name);
+        synchronized (locks[s]) {
+            return sequences[s];
+        }
+    }
+
+    /**
+     * Records a level read from the database after ticket() was taken, unless a change may
+     * have landed around the read. Returns whether it was stored.
+     */
+    boolean putIfUnchanged(String name, Integer stock, long ticket) {
+        int s = stripe(name);
+        synchronized (locks[s]) {
+            if (sequences[s] != ticket || pending.get(s).containsKey(name)) {
+                return false;
+            }
+            store(s, name, stock);
+            return true;
+        }
+    }
+
+    /** Records a level the caller just wrote; null means the medicine is not tracked. */
+    void put(String name, Integer stock) {
+        int s = stripe(name);
+        synchronized (locks[s]) {
+            sequences[s]++;
+            store(s, name, stock);
+        }
+    }
+
+    private void store(int s, String name, Integer stock) {
+        if (stock == null) {
+            stripes.get(s).remove(name);
+        } else {
+            stripes.get(s).put(name, new Level(stock, System.currentTimeMillis()));
+        }
+    }
+
+    /** Call once the database update is made, before the transaction commits. */
+    void beginChange(String name) {
+        int s = stripe(name);
+        synchronized (locks[s]) {
+            sequences[s]++;
+            pending.get(s).merge(name, 1, Integer::sum);
+        }
+    }
+
+    /** Call when the transaction completes; delta is 0 if it rolled back. */
+    void endChange(String name, int delta) {
+        int s = stripe(name);
+        synchronized (locks[s]) {
+            sequences[s]++;
+            pending.get(s).computeIfPresent(name, (k, count) -> count > 1 ? count - 1 : null);
+            Level level = stripes.get(s).get(name);
+            if (level != null && delta != 0) {
+                stripes.get(s).put(name, new Level(level.stock() + delta, level.loadedAt()));
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (int s = 0; s < locks.length; s++) {
+            synchronized (locks[s]) {
+                size += stripes.get(s).size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,55 @@
+package org.spring.loginregistration.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Creates MedicationTracker rows with one JDBC batch. Rows that already exist are skipped by
+ * the unique (user_id, date, medicine_name) constraint, so concurrent callers (two dashboard
+ * loads, or the dashboard racing a background job) can insert the same day safely.
+ *
+ * Ids come from the same sequence Hibernate uses for MedicationTracker; Hibernate's pooled
+ * optimizer only hands out ids below values it fetched itself, so the two never collide.
+ */
+@Component
+public class TrackerMaterializer {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO medication_tracker (id, user_id, medicine_name, date, is_taken, version) " +
+            "VALUES (nextval('medication_tracker_seq'), ?, ?, ?, FALSE, 0) ON CONFLICT DO NOTHING";
+
+    public record TrackerRow(Long userId, String medicineName, LocalDate date) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TrackerMaterializer(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the rows that do not exist yet. Returns the number inserted when the driver
+     * reports it; with rewritten batches the PostgreSQL driver does not, and 0 is returned.
+     */
+    public int insertMissing(List<TrackerRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setLong(1, row.userId());
+            ps.setString(2, row.medicineName());
+            ps.setDate(3, Date.valueOf(row.date()));
+        })[0];
+        int inserted = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                inserted += count;
+            }
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,259 @@
+package org.spring.loginregistration.service;
+
+import jakarta.annotation.PreDestroy;
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.JobCheckpoint;
+import org.spring.loginregistration.repository.JobCheckpointRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Creates tomorrow's MedicationTracker rows for every patient with a recent prescription, so
+ * the first /medication/today of the morning is a plain read.
+ *
+ * Patients are walked in user-id order, chunk-size at a time. Each chunk loads the latest
+ * prescription's medicines for its users in one query and inserts the rows with one JDBC batch
+ * on a bounded worker pool. Inserts skip rows that already exist, so the job is idempotent; a
+ * checkpoint records the highest user id below which every chunk has finished, and a run that
+ * was interrupted resumes from there on the next start.
+ */
+@Service
+public class TrackerPrematerializationJob implements StatsProvider {
+
+    private static final String JOB_NAME = "tracker-prematerialize";
+
+    private static final String USER_CHUNK_SQL =
+            "SELECT DISTINCT user_id FROM prescription WHERE user_id > :lastId " +
+            "AND (date IS NULL OR date >= :activeSince) ORDER BY user_id LIMIT :limit";
+    private static final String LATEST_MEDICINES_SQL =
+            "SELECT p.user_id, m.medicines FROM prescription p " +
+            "JOIN prescription_medicines m ON m.prescription_id = p.id " +
+            "WHERE p.id IN (SELECT MAX(id) FROM prescription WHERE user_id IN (:userIds) GROUP BY user_id)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TrackerMaterializer trackerMaterializer;
+    private final JobCheckpointRepository checkpointRepository;
+    private final AdherenceService adherenceService;
+    private final ThreadPoolExecutor workers;
+    private final boolean enabled;
+    private final int chunkSize;
+    private final int activeDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failedChunks = new LongAdder();
+    private volatile long lastRunUsers;
+    private volatile long lastRunRows;
+    private volatile long lastRunMillis;
+    private volatile long lastRowsPerSecond;
+
+    public TrackerPrematerializationJob(NamedParameterJdbcTemplate jdbcTemplate,
+                                        TrackerMaterializer trackerMaterializer,
+                                        JobCheckpointRepository checkpointRepository,
+                                        AdherenceService adherenceService,
+                                        @Value("${tracker.prematerialize.enabled:true}") boolean enabled,
+                                        @Value("${tracker.prematerialize.chunk-size:500}") int chunkSize,
+                                        @Value("${tracker.prematerialize.workers:4}") int workerCount,
+                                        @Value("${tracker.prematerialize.active-days:180}") int activeDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.trackerMaterializer = trackerMaterializer;
+        this.checkpointRepository = checkpointRepository;
+        this.adherenceService = adherenceService;
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+        this.activeDays = activeDays;
+        // Small queue + CallerRunsPolicy: the coordinator slows down instead of reading ahead
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workerCount * 2), r -> {
+                    Thread t = new Thread(r, "tracker-prematerialize");
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Scheduled(cron = "${tracker.prematerialize.cron:0 0 1 * * *}")
+    public void nightlyRun() {
+        if (enabled) {
+            run(LocalDate.now().plusDays(1));
+        }
+    }
+
+    // Finish a run that a restart cut short
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        if (!enabled) {
+            return;
+        }
+        checkpointRepository.findById(JOB_NAME)
+                .filter(cp -> !cp.isCompleted() && cp.getTargetDate() != null && !cp.getTargetDate().isBefore(LocalDate.now()))
+                .ifPresent(cp -> {
+                    Thread resume = new Thread(() -> run(cp.getTargetDate()), "tracker-prematerialize-resume");
+                    resume.setDaemon(true);
+                    resume.start();
+                });
+    }
+
+    /** Materializes rows for the given date; returns the number of rows submitted. */
+    public long run(LocalDate targetDate) {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        JobCheckpoint checkpoint;
+        try {
+            checkpoint = checkpointRepository.findById(JOB_NAME).orElseGet(JobCheckpoint::new);
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        boolean sameTarget = targetDate.equals(checkpoint.getTargetDate()) && checkpoint.getLastKey() != null;
+        if (sameTarget && checkpoint.isCompleted()) {
+            running.set(false);
+            return 0;
+        }
+        long start = System.currentTimeMillis();
+        LongAdder users = new LongAdder();
+        LongAdder rows = new LongAdder();
+        try {
+            long lastId = 0;
+            if (sameTarget) {
+                lastId = checkpoint.getLastKey();
+                System.out.println("Resuming tracker pre-materialization for " + targetDate + " after user " + lastId);
+            }
+            checkpoint.setJobName(JOB_NAME);
+            checkpoint.setTargetDate(targetDate);
+            saveCheckpoint(checkpoint, lastId, false);
+
+            Progress progress = new Progress(lastId);
+            Date activeSince = Date.valueOf(LocalDate.now().minusDays(activeDays));
+            while (true) {
+                List<Long> userIds = jdbcTemplate.queryForList(USER_CHUNK_SQL, new MapSqlParameterSource()
+                        .addValue("lastId", lastId)
+                        .addValue("activeSince", activeSince)
+                        .addValue("limit", chunkSize), Long.class);
+                if (userIds.isEmpty()) {
+                    break;
+                }
+                lastId = userIds.get(userIds.size() - 1);
+                progress.inFlight.addLast(Map.entry(lastId, workers.submit(() -> processChunk(userIds, targetDate, users, rows))));
+                advance(checkpoint, progress, false);
+                if (userIds.size() < chunkSize) {
+                    break;
+                }
+            }
+            advance(checkpoint, progress, true);
+            if (!progress.failed) {
+                saveCheckpoint(checkpoint, lastId, true);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Tracker pre-materialization failed: " + e.getMessage());
+        } finally {
+            lastRunMillis = Math.max(1, System.currentTimeMillis() - start);
+            lastRunUsers = users.sum();
+            lastRunRows = rows.sum();
+            lastRowsPerSecond = lastRunRows * 1000 / lastRunMillis;
+            runs.increment();
+            running.set(false);
+        }
+        System.out.println("Tracker pre-materialization for " + targetDate + ": " + lastRunRows + " rows for "
+                + lastRunUsers + " patients in " + lastRunMillis + " ms (" + lastRowsPerSecond + " rows/s)");
+        return lastRunRows;
+    }
+
+    private void processChunk(List<Long> userIds, LocalDate targetDate, LongAdder users, LongAdder rows) {
+        List<TrackerMaterializer.TrackerRow> batch = new ArrayList<>();
+        Set<Long> seenUsers = new HashSet<>();
+        jdbcTemplate.query(LATEST_MEDICINES_SQL, new MapSqlParameterSource("userIds", userIds), rs -> {
+            String medicine = rs.getString(2);
+            if (medicine != null && !medicine.isBlank()) {
+                long userId = rs.getLong(1);
+                seenUsers.add(userId);
+                batch.add(new TrackerMaterializer.TrackerRow(userId, medicine, targetDate));
+            }
+        });
+        trackerMaterializer.insertMissing(batch);
+        adherenceService.recordScheduled(batch);
+        users.add(seenUsers.size());
+        rows.add(batch.size());
+    }
+
+    /** Chunks submitted in user-id order, and how far the checkpoint may safely move. */
+    private static final class Progress {
+        final Deque<Map.Entry<Long, Future<?>>> inFlight = new ArrayDeque<>();
+        long watermark;
+        boolean failed;
+
+        Progress(long watermark) {
+            this.watermark = watermark;
+        }
+    }
+
+    // The checkpoint only moves past a chunk once it and every chunk before it succeeded
+    private void advance(JobCheckpoint checkpoint, Progress progress, boolean waitForAll) throws InterruptedException {
+        long before = progress.watermark;
+        while (!progress.inFlight.isEmpty()) {
+            Map.Entry<Long, Future<?>> head = progress.inFlight.peekFirst();
+            if (!waitForAll && !head.getValue().isDone()) {
+                break;
+            }
+            try {
+                head.getValue().get();
+                if (!progress.failed) {
+                    progress.watermark = head.getKey();
+                }
+            } catch (ExecutionException e) {
+                failedChunks.increment();
+                progress.failed = true;
+                System.err.println("Tracker pre-materialization chunk ending at user " + head.getKey()
+                        + " failed: " + e.getCause().getMessage());
+            }
+            progress.inFlight.pollFirst();
+        }
+        if (progress.watermark != before) {
+            saveCheckpoint(checkpoint, progress.watermark, false);
+        }
+    }
+
+    private void saveCheckpoint(JobCheckpoint checkpoint, long lastKey, boolean completed) {
+        checkpoint.setLastKey(lastKey);
+        checkpoint.setCompleted(completed);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    @Override
+    public String getStatsName() {
+        return "trackerPrematerialization";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("runs", runs.sum());
+        stats.put("failedChunks", failedChunks.sum());
+        stats.put("lastRunUsers", lastRunUsers);
+        stats.put("lastRunRows", lastRunRows);
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRowsPerSecond", lastRowsPerSecond);
+        return stats;
+    }
+}
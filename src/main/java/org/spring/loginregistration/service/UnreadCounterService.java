@@ -0,0 +1,260 @@
+package org.spring.loginregistration.service;
+
+import org.spring.loginregistration.metrics.StatsProvider;
+import org.spring.loginregistration.model.Doctor;
+import org.spring.loginregistration.model.NotificationUnreadCounter;
+import org.spring.loginregistration.model.User;
+import org.spring.loginregistration.repository.NotificationRepository;
+import org.spring.loginregistration.repository.NotificationUnreadCounterRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Unread notification counts per recipient, kept in memory as striped counters (LongAdder).
+ *
+ * A counter is seeded from the notification_unread_counter table the first time a recipient
+ * is seen (falling back to one COUNT if there is no row yet), changed in place on every new
+ * notification or mark-all-read, and written back to the table periodically. A slower
+ * reconcile job recounts loaded recipients from the notification table to correct any drift,
+ * e.g. from a crash between write-backs.
+ *
+ * Changes mark their key dirty inside the same compute() that changes the counter, and the
+ * write-back job evicts clean keys with computeIfPresent(), so an eviction can never drop a
+ * change it has not written. Above max-keys, the write-back evicts clean entries; they reload
+ * from the table on next use. Every change also bumps the counter's version, so a reconcile
+ * only overwrites counters that did not change while their COUNT query ran.
+ */
+@Service
+public class UnreadCounterService implements StatsProvider {
+
+    private static final String USER_PREFIX = "USER:";
+    private static final String DOCTOR_PREFIX = "DOCTOR:";
+    private static final int RECONCILE_CHUNK = 500;
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationUnreadCounterRepository counterRepository;
+    private final NotificationWriter notificationWriter;
+    private final int maxKeys;
+
+    private static final class Counter {
+        final LongAdder unread = new LongAdder();
+        volatile long version; // only changed inside compute() on the map entry
+    }
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder writeBacks = new LongAdder();
+    private final LongAdder reconciled = new LongAdder();
+    private final LongAdder corrections = new LongAdder();
+    private final LongAdder reconcileSkips = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public UnreadCounterService(NotificationRepository notificationRepository,
+                                NotificationUnreadCounterRepository counterRepository,
+                                NotificationWriter notificationWriter,
+                                @Value("${notification.unread.max-keys:100000}") int maxKeys) {
+        this.notificationRepository = notificationRepository;
+        this.counterRepository = counterRepository;
+        this.notificationWriter = notificationWriter;
+        this.maxKeys = maxKeys;
+    }
+
+    public static String userKey(Long userId) {
+        return USER_PREFIX + userId;
+    }
+
+    public static String doctorKey(Long doctorId) {
+        return DOCTOR_PREFIX + doctorId;
+    }
+
+    public long get(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            Counter fresh = loadCounter(key);
+            counter = counters.putIfAbsent(key, fresh);
+            return counter != null ? counter.unread.sum() : fresh.unread.sum();
+        }
+        return counter.unread.sum();
+    }
+
+    public void increment(String key) {
+        update(key, LongAdder::increment);
+    }
+
+    public void reset(String key) {
+        update(key, LongAdder::reset);
+    }
+
+    private void update(String key, Consumer<LongAdder> change) {
+        // Load outside the map lock; only an eviction in between makes compute() load again
+        Counter fresh = counters.containsKey(key) ? null : loadCounter(key);
+        counters.compute(key, (k, counter) -> {
+            Counter target = counter != null ? counter : fresh != null ? fresh : loadCounter(k);
+            change.accept(target.unread);
+            target.version++;
+            dirty.add(k);
+            return target;
+        });
+    }
+
+    private Counter loadCounter(String key) {
+        Counter counter = new Counter();
+        counter.unread.add(load(key));
+        return counter;
+    }
+
+    private long load(String key) {
+        loads.increment();
+        Optional<NotificationUnreadCounter> stored = counterRepository.findById(key);
+        if (stored.isPresent()) {
+            return stored.get().getUnreadCount();
+        }
+        long id = Long.parseLong(key.substring(key.indexOf(':') + 1));
+        if (key.startsWith(USER_PREFIX)) {
+            User user = new User();
+            user.setId(id);
+            return notificationRepository.countByUserAndIsReadFalse(user);
+        }
+        Doctor doctor = new Doctor();
+        doctor.setDoctorId(id);
+        return notificationRepository.countByDoctorAndIsReadFalse(doctor);
+    }
+
+    @Scheduled(fixedDelayString = "${notification.unread.write-back-interval-ms:30000}")
+    public void writeBack() {
+        if (dirty.isEmpty()) {
+            evictIfFull();
+            return;
+        }
+        List<NotificationUnreadCounter> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String key = it.next();
+            it.remove();
+            Counter counter = counters.get(key);
+            if (counter == null) {
+                continue;
+            }
+            NotificationUnreadCounter row = new NotificationUnreadCounter();
+            row.setRecipientKey(key);
+            row.setUnreadCount(Math.max(0, counter.unread.sum()));
+            row.setUpdatedAt(now);
+            rows.add(row);
+        }
+        counterRepository.saveAll(rows);
+        writeBacks.add(rows.size());
+        evictIfFull();
+    }
+
+    // Clean entries are already in the table; a key dirtied meanwhile is kept by the check in the lock
+    private void evictIfFull() {
+        if (counters.size() <= maxKeys) {
+            return;
+        }
+        for (String key : counters.keySet()) {
+            if (!dirty.contains(key) && counters.computeIfPresent(key, (k, c) -> dirty.contains(k) ? c : null) == null) {
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * Recounts every loaded recipient with grouped COUNT queries. A chunk is skipped while
+     * notifications are waiting to be inserted (queued, or drained but not yet written), since
+     * the table would undercount them, and a counter that changed while its COUNT ran is left
+     * alone: the change it saw may not be in the count.
+     */
+    @Scheduled(fixedDelayString = "${notification.unread.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        List<Long> userIds = new ArrayList<>();
+        List<Long> doctorIds = new ArrayList<>();
+        for (String key : counters.keySet()) {
+            long id = Long.parseLong(key.substring(key.indexOf(':') + 1));
+            (key.startsWith(USER_PREFIX) ? userIds : doctorIds).add(id);
+        }
+        for (int i = 0; i < userIds.size(); i += RECONCILE_CHUNK) {
+            List<Long> chunk = userIds.subList(i, Math.min(i + RECONCILE_CHUNK, userIds.size()));
+            reconcileChunk(chunk, USER_PREFIX, notificationRepository::countUnreadByUserIds);
+        }
+        for (int i = 0; i < doctorIds.size(); i += RECONCILE_CHUNK) {
+            List<Long> chunk = doctorIds.subList(i, Math.min(i + RECONCILE_CHUNK, doctorIds.size()));
+            reconcileChunk(chunk, DOCTOR_PREFIX, notificationRepository::countUnreadByDoctorIds);
+        }
+        writeBack();
+    }
+
+    private void reconcileChunk(List<Long> ids, String prefix, Function<List<Long>, List<Object[]>> countQuery) {
+        // Versions before the writer check: a notification counted before this snapshot is then
+        // either in the table, or still pending and the chunk is skipped. One counted after it
+        // changes the version.
+        Map<String, Long> versions = new HashMap<>();
+        for (Long id : ids) {
+            Counter counter = counters.get(prefix + id);
+            if (counter != null) {
+                versions.put(prefix + id, counter.version);
+            }
+        }
+        long enqueuedBefore = notificationWriter.getEnqueuedCount();
+        if (notificationWriter.getPendingCount() > 0) {
+            reconcileSkips.increment();
+            return;
+        }
+        List<Object[]> counts = countQuery.apply(ids);
+        // Something enqueued meanwhile may belong to a counter bumped just before the snapshot
+        if (notificationWriter.getEnqueuedCount() != enqueuedBefore) {
+            reconcileSkips.increment();
+            return;
+        }
+        Map<Long, Long> exact = new HashMap<>();
+        for (Object[] row : counts) {
+            exact.put((Long) row[0], (Long) row[1]);
+        }
+        for (Long id : ids) {
+            long actual = exact.getOrDefault(id, 0L);
+            Long seen = versions.get(prefix + id);
+            counters.computeIfPresent(prefix + id, (k, counter) -> {
+                if (seen == null || counter.version != seen) {
+                    return counter; // changed (or reloaded) while we counted
+                }
+                long drift = actual - counter.unread.sum();
+                if (drift != 0) {
+                    counter.unread.add(drift);
+                    counter.version++;
+                    dirty.add(k);
+                    corrections.increment();
+                }
+                return counter;
+            });
+            reconciled.increment();
+        }
+    }
+
+    @Override
+    public String getStatsName() {
+        return "unreadCounters";
+    }
+
+    @Override
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("loadedKeys", (long) counters.size());
+        stats.put("dirtyKeys", (long) dirty.size());
+        stats.put("loads", loads.sum());
+        stats.put("writeBacks", writeBacks.sum());
+        stats.put("reconciled", reconciled.sum());
+        stats.put("corrections", corrections.sum());
+        stats.put("reconcileSkips", reconcileSkips.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+}
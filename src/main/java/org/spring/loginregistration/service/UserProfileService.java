@@ -4,6 +4,7 @@ import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.model.UserProfile;
 import org.spring.loginregistration.repository.UserProfileRepository;
 import org.spring.loginregistration.repository.UserRepository;
+import org.spring.loginregistration.security.PrincipalSnapshotCache;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
@@ -13,10 +14,13 @@ public class UserProfileService {
 
     private final UserProfileRepository userProfileRepository;
     private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalCache;
 
-    public UserProfileService(UserProfileRepository userProfileRepository, UserRepository userRepository) {
+    public UserProfileService(UserProfileRepository userProfileRepository, UserRepository userRepository,
+                              PrincipalSnapshotCache principalCache) {
         this.userProfileRepository = userProfileRepository;
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     public UserProfile saveOrUpdateProfile(Long userId, UserProfile newProfile) {
@@ -40,7 +44,9 @@ public class UserProfileService {
             existingProfile.setProfilePhotoUrl(newProfile.getProfilePhotoUrl());
         }
 
-        return userProfileRepository.save(existingProfile);
+        UserProfile saved = userProfileRepository.save(existingProfile);
+        principalCache.invalidateUser(userId);
+        return saved;
     }
 
     public UserProfile getProfile(Long userId) {
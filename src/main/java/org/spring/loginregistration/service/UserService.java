@@ -3,6 +3,7 @@ package org.spring.loginregistration.service;
 import org.spring.loginregistration.model.User;
 import org.spring.loginregistration.repository.UserRepository;
 import org.spring.loginregistration.security.JwtService;
+import org.spring.loginregistration.security.LoginThrottle;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -13,11 +14,16 @@ public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
+    private final LoginThrottle loginThrottle;
+    private final DailyRollupService rollups;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService){
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, JwtService jwtService, LoginThrottle loginThrottle,
+                       DailyRollupService rollups){
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
+        this.loginThrottle = loginThrottle;
+        this.rollups = rollups;
     }
 
     public void registerUser(String userName, String email, String password){
@@ -32,17 +38,19 @@ public class UserService {
         user.setEmail(email);
         user.setPassword(encodePassword);
 
-        userRepository.save(user);
+        User saved = userRepository.save(user);
+        rollups.record(DailyRollupService.SIGNUPS, saved.getCreatedAt().toLocalDate(), 1);
     }
 
-    public String loginUser(String email, String password){
+    public String loginUser(String email, String password, String clientIp){
+        loginThrottle.checkAttempt(email, clientIp);
         Optional<User> optionalUser = userRepository.findByEmail(email);
         if(optionalUser.isEmpty()){
             throw new RuntimeException("No email found.");
         }
 
         User user = optionalUser.get();
-        if(!passwordEncoder.matches(password, user.getPassword())){
+        if(!loginThrottle.passwordMatches(password, user.getPassword())){
             throw new RuntimeException("Password Incorrect");
         }
 
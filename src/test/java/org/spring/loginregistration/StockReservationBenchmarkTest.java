@@ -0,0 +1,115 @@
+package org.spring.loginregistration;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.spring.loginregistration.dto.OrderStatusChange;
+import org.spring.loginregistration.dto.OrderStatusResult;
+import org.spring.loginregistration.exception.ConflictException;
+import org.spring.loginregistration.model.User;
+import org.spring.loginregistration.repository.UserRepository;
+import org.spring.loginregistration.service.PharmacyService;
+import org.spring.loginregistration.service.StockService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Contention benchmark: many threads ordering the same medicine at once. Checks that exactly the
+ * stocked quantity is sold (no oversell, no lost reservation) and prints the order throughput.
+ * Excluded from the default build; run it with mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+@SpringBootTest
+class StockReservationBenchmarkTest {
+
+    private static final String HOT_SKU = "Benchmark Hot SKU 500mg";
+    private static final int STOCK = 1000;
+    private static final int ATTEMPTS = 3000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PharmacyService pharmacyService;
+    @Autowired
+    private StockService stockService;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void hotSkuIsNeverOversold() throws Exception {
+        User user = new User();
+        user.setEmail("stock-benchmark@example.com");
+        user.setUsername("stock-benchmark");
+        user.setPassword("x");
+        Long userId = userRepository.save(user).getId();
+        pharmacyService.saveMedicine(HOT_SKU, 25.0);
+        pharmacyService.setStock(HOT_SKU, STOCK);
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger outOfStock = new AtomicInteger();
+        List<Future<Long>> orders = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < ATTEMPTS; i++) {
+            orders.add(pool.submit(() -> {
+                try {
+                    return pharmacyService.placeOrder(userId, null, List.of(HOT_SKU), "1 Test Street, 560001", 25.0).getId();
+                } catch (ConflictException e) {
+                    outOfStock.incrementAndGet();
+                    return null;
+                }
+            }));
+        }
+        List<Long> placed = new ArrayList<>();
+        for (Future<Long> order : orders) {
+            Long id = order.get();
+            if (id != null) {
+                placed.add(id);
+            }
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        pool.shutdown();
+
+        System.out.println("Hot SKU benchmark: " + ATTEMPTS + " attempts on " + THREADS + " threads in " + elapsedMillis
+                + " ms (" + ATTEMPTS * 1000L / elapsedMillis + " attempts/s, " + placed.size() * 1000L / elapsedMillis
+                + " orders/s), " + stockService.getStats());
+        assertEquals(STOCK, placed.size());
+        assertEquals(ATTEMPTS - STOCK, outOfStock.get());
+        assertEquals(0, stockService.getStock(HOT_SKU));
+
+        // Cancelling gives the reserved stock back
+        List<OrderStatusChange> cancels = new ArrayList<>();
+        placed.subList(0, 100).forEach(id -> cancels.add(new OrderStatusChange(id, "CANCELLED")));
+        assertEquals(100, pharmacyService.updateOrderStatuses(cancels).getUpdated().size());
+        assertEquals(100, stockService.getStock(HOT_SKU));
+
+        // Two cancels of the same orders racing each other give the stock back only once
+        List<OrderStatusChange> racing = new ArrayList<>();
+        placed.subList(100, 150).forEach(id -> racing.add(new OrderStatusChange(id, "CANCELLED")));
+        ExecutorService cancelPool = Executors.newFixedThreadPool(2);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<OrderStatusResult>> cancelRuns = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            cancelRuns.add(cancelPool.submit(() -> {
+                go.await();
+                return pharmacyService.updateOrderStatuses(racing);
+            }));
+        }
+        go.countDown();
+        int moved = 0;
+        for (Future<OrderStatusResult> run : cancelRuns) {
+            moved += run.get().getUpdated().size();
+        }
+        cancelPool.shutdown();
+        assertEquals(50, moved); // each order is reported (and notified) by exactly one of them
+        assertEquals(150, stockService.getStock(HOT_SKU));
+
+        // And cancelling again later changes nothing
+        pharmacyService.updateOrderStatuses(racing);
+        assertEquals(150, stockService.getStock(HOT_SKU));
+    }
+}
@@ -0,0 +1,47 @@
+package org.spring.loginregistration.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderStatusTest {
+
+    @Test
+    void ordersMoveForwardOneStepAtATime() {
+        assertEquals(Set.of(), OrderStatus.PENDING.allowedFrom());
+        assertEquals(Set.of(OrderStatus.PENDING), OrderStatus.CONFIRMED.allowedFrom());
+        assertEquals(Set.of(OrderStatus.CONFIRMED), OrderStatus.DISPATCHED.allowedFrom());
+        assertEquals(Set.of(OrderStatus.DISPATCHED), OrderStatus.DELIVERED.allowedFrom());
+    }
+
+    @Test
+    void anyUndeliveredOrderCanBeCancelled() {
+        assertEquals(EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.DISPATCHED),
+                OrderStatus.CANCELLED.allowedFrom());
+    }
+
+    @Test
+    void finishedOrdersCannotMove() {
+        for (OrderStatus target : OrderStatus.values()) {
+            assertFalse(target.allowedFrom().contains(OrderStatus.DELIVERED), "DELIVERED -> " + target);
+            assertFalse(target.allowedFrom().contains(OrderStatus.CANCELLED), "CANCELLED -> " + target);
+        }
+    }
+
+    @Test
+    void parseIgnoresCaseAndSurroundingSpace() {
+        assertEquals(OrderStatus.DISPATCHED, OrderStatus.parse(" dispatched "));
+        assertEquals(OrderStatus.PENDING, OrderStatus.parse("Pending"));
+    }
+
+    @Test
+    void parseRejectsUnknownStatuses() {
+        RuntimeException e = assertThrows(RuntimeException.class, () -> OrderStatus.parse("Processing"));
+        assertEquals("Unknown order status: Processing", e.getMessage());
+    }
+}
@@ -0,0 +1,78 @@
+package org.spring.loginregistration.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    @Test
+    void allowsCapacityThenRejects() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, 1, 100);
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("a@example.com"));
+        }
+        assertFalse(limiter.tryAcquire("a@example.com"));
+        assertTrue(limiter.tryAcquire("b@example.com"), "buckets are per key");
+        assertEquals(4, limiter.getAllowed());
+        assertEquals(1, limiter.getRejected());
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, 60_000, 100); // one token per millisecond
+
+        assertTrue(limiter.tryAcquire("a"));
+        Thread.sleep(5);
+        assertTrue(limiter.tryAcquire("a"));
+    }
+
+    @Test
+    void newKeysStillGetABucketWhenFull() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 1, 4);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire("drained-" + i);
+            limiter.tryAcquire("drained-" + i);
+        }
+
+        assertTrue(limiter.tryAcquire("newcomer"));
+        assertEquals(4, limiter.size());
+        assertEquals(1, limiter.getEvictedActive());
+    }
+
+    @Test
+    void idleBucketsAreEvictedBeforeActiveOnes() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, 600, 3); // a token every 100 ms
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("busy");
+        limiter.tryAcquire("idle");
+        Thread.sleep(150);
+        limiter.tryAcquire("recent");
+        limiter.tryAcquire("recent");
+
+        // "busy" is least recently used but still half empty; "idle" has refilled and goes instead
+        assertTrue(limiter.tryAcquire("newcomer"));
+        assertEquals(0, limiter.getEvictedActive());
+        assertEquals(1, limiter.getEvicted());
+        assertTrue(limiter.tryAcquire("busy"));
+        assertFalse(limiter.tryAcquire("busy"));
+    }
+
+    @Test
+    void evictIdleDropsOnlyRefilledBuckets() throws InterruptedException {
+        TokenBucketLimiter fast = new TokenBucketLimiter(1, 60_000, 100);
+        fast.tryAcquire("a");
+        fast.tryAcquire("b");
+        Thread.sleep(5);
+        assertEquals(2, fast.evictIdle());
+        assertEquals(0, fast.size());
+
+        TokenBucketLimiter slow = new TokenBucketLimiter(1, 1, 100);
+        slow.tryAcquire("a");
+        assertEquals(0, slow.evictIdle());
+        assertEquals(1, slow.size());
+    }
+}
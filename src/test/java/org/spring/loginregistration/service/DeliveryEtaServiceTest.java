@@ -0,0 +1,80 @@
+package org.spring.loginregistration.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeliveryEtaServiceTest {
+
+    // Only the in-memory paths are exercised, so no repositories are needed
+    private static DeliveryEtaService service(long minSamples, int maxAreas) {
+        return new DeliveryEtaService(null, null, null, null, minSamples, maxAreas, "2-4 Hours");
+    }
+
+    @Test
+    void bucketUpperEdgeBoundsItsSamples() {
+        for (double minutes = 5; minutes < 10_080; minutes *= 1.037) {
+            int bucket = DeliveryEtaService.bucket(minutes);
+            assertTrue(minutes < DeliveryEtaService.upperEdge(bucket), minutes + " above bucket " + bucket);
+            assertTrue(minutes >= DeliveryEtaService.upperEdge(bucket - 1), minutes + " below bucket " + bucket);
+        }
+    }
+
+    @Test
+    void bucketClampsBothEnds() {
+        assertEquals(0, DeliveryEtaService.bucket(0));
+        assertEquals(0, DeliveryEtaService.bucket(4.99));
+        assertEquals(1, DeliveryEtaService.bucket(5));
+        assertEquals(83, DeliveryEtaService.bucket(1_000_000));
+    }
+
+    @Test
+    void formatUsesMinutesUnderAnHourAndAHalf() {
+        assertEquals("40-75 Minutes", DeliveryEtaService.format(40, 75));
+        assertEquals("60-90 Minutes", DeliveryEtaService.format(60, 89));
+        assertEquals("5-10 Minutes", DeliveryEtaService.format(2, 3)); // never below five, never empty
+    }
+
+    @Test
+    void formatUsesWholeHoursAboveThat() {
+        assertEquals("2-4 Hours", DeliveryEtaService.format(120, 240));
+        assertEquals("1-2 Hours", DeliveryEtaService.format(100, 100));
+        assertEquals("1-3 Hours", DeliveryEtaService.format(30, 150));
+    }
+
+    @Test
+    void areaIsThePinCodeElseTheLastAddressPart() {
+        DeliveryEtaService eta = service(20, 10);
+
+        assertEquals("411001", eta.area("12 MG Road, Pune 411001, India", true));
+        assertEquals("pune", eta.area("12 MG Road,  PUNE ", true));
+        assertEquals("other", eta.area("  ", true));
+    }
+
+    @Test
+    void newAreasPastTheCapAreFolded() {
+        DeliveryEtaService eta = service(20, 2);
+        eta.area("Pune", true);
+        eta.area("Mumbai", true);
+
+        assertEquals("other", eta.area("Delhi", true));
+        assertEquals("pune", eta.area("Pune", true));
+        assertEquals("delhi", eta.area("Delhi", false)); // estimates never claim a slot
+    }
+
+    @Test
+    void estimateFallsBackUntilEnoughSamples() {
+        DeliveryEtaService eta = service(3, 10);
+        LocalDateTime ordered = LocalDateTime.of(2026, 3, 2, 10, 15);
+
+        assertEquals("2-4 Hours", eta.estimate("Pune 411001", ordered));
+        for (int i = 0; i < 3; i++) {
+            eta.recordDelivery("Pune 411001", ordered, ordered.plusMinutes(30));
+        }
+        assertEquals("30-35 Minutes", eta.estimate("Pune 411001", ordered));
+        assertEquals("30-35 Minutes", eta.estimate("Mumbai 400001", ordered)); // same hour, all areas
+    }
+}
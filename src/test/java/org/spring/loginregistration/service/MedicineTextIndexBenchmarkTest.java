@@ -0,0 +1,97 @@
+package org.spring.loginregistration.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Autocomplete at catalog scale: 100k generated names built from a small set of syllables, so
+ * grams are far more shared than in real catalogs. Times prefix queries and fuzzy queries (one
+ * character dropped from a real entry) one by one against a p99 target of a millisecond, and
+ * checks that the budgeted fuzzy search still finds the intended name.
+ * Excluded from the default build; run it with mvn test -Pbenchmark.
+ */
+@Tag("benchmark")
+class MedicineTextIndexBenchmarkTest {
+
+    private static final int NAMES = 100_000;
+    private static final int QUERIES = 5_000;
+    private static final String[] SYLLABLES = {"pa", "ra", "ce", "ta", "mol", "ami", "lo", "di", "pine", "xi",
+            "cil", "lin", "pro", "fen", "zole", "met", "for", "min", "ator", "va", "sta", "tin", "cef", "nex"};
+    private static final String[] STRENGTHS = {"", " 5mg", " 10mg", " 250mg", " 500mg", " 650mg", " syrup"};
+
+    @Test
+    void latencyAndRecallAt100kNames() {
+        Random random = new Random(42);
+        MedicineTextIndex index = new MedicineTextIndex();
+        List<String> keys = new ArrayList<>(NAMES);
+        while (index.size() < NAMES) {
+            StringBuilder name = new StringBuilder();
+            for (int s = 2 + random.nextInt(3); s > 0; s--) {
+                name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+            }
+            name.append(STRENGTHS[random.nextInt(STRENGTHS.length)]);
+            String key = MedicineCatalog.normalize(name.toString());
+            int before = index.size();
+            index.add(key, name.toString());
+            if (index.size() > before) {
+                keys.add(key);
+            }
+        }
+
+        List<String> prefixes = new ArrayList<>(QUERIES);
+        List<String> typos = new ArrayList<>(QUERIES);
+        List<String> intended = new ArrayList<>(QUERIES);
+        for (int q = 0; q < QUERIES; q++) {
+            String key = keys.get(random.nextInt(keys.size()));
+            prefixes.add(key.substring(0, 1 + random.nextInt(Math.min(5, key.length()))));
+            int drop = random.nextInt(key.length());
+            typos.add(key.substring(0, drop) + key.substring(drop + 1));
+            intended.add(key);
+        }
+
+        long[] prefix = time(prefixes, query -> index.prefixSearch(query, 10));
+        long[] fuzzy = time(typos, query -> index.fuzzySearch(query, 10, 0.3));
+        int found = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            String key = intended.get(q);
+            if (index.fuzzySearch(typos.get(q), 10, 0.3).stream()
+                    .anyMatch(match -> MedicineCatalog.normalize(match.name()).equals(key))) {
+                found++;
+            }
+        }
+        System.out.printf("MedicineTextIndex at %d names: prefix p50 %d us, p99 %d us; fuzzy p50 %d us, p99 %d us; "
+                        + "intended name in top 10 for %d/%d typos%n", NAMES, percentile(prefix, 0.5), percentile(prefix, 0.99),
+                percentile(fuzzy, 0.5), percentile(fuzzy, 0.99), found, QUERIES);
+
+        assertTrue(percentile(prefix, 0.99) < 1_000, "prefix p99 " + percentile(prefix, 0.99) + " us");
+        assertTrue(percentile(fuzzy, 0.99) < 1_000, "fuzzy p99 " + percentile(fuzzy, 0.99) + " us");
+        assertTrue(found >= QUERIES * 0.98, "intended name found for " + found + "/" + QUERIES);
+    }
+
+    // Microseconds per query, sorted; the list is run a few times first to warm up the JIT
+    private static long[] time(List<String> queries, Consumer<String> search) {
+        for (int warmup = 0; warmup < 3; warmup++) {
+            queries.forEach(search);
+        }
+        long[] micros = new long[queries.size()];
+        for (int q = 0; q < queries.size(); q++) {
+            long start = System.nanoTime();
+            search.accept(queries.get(q));
+            micros[q] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(micros);
+        return micros;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+}
@@ -0,0 +1,116 @@
+package org.spring.loginregistration.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MedicineTextIndexTest {
+
+    private static MedicineTextIndex index(String... names) {
+        MedicineTextIndex index = new MedicineTextIndex();
+        for (String name : names) {
+            index.add(name, name);
+        }
+        return index;
+    }
+
+    private static double jaccard(String a, String b) {
+        Set<String> union = new HashSet<>(MedicineTextIndex.trigrams(a));
+        Set<String> common = new HashSet<>(union);
+        common.retainAll(MedicineTextIndex.trigrams(b));
+        union.addAll(MedicineTextIndex.trigrams(b));
+        return (double) common.size() / union.size();
+    }
+
+    @Test
+    void prefixSearchIsAlphabeticalAcrossSplitEdges() {
+        MedicineTextIndex index = index("paracetamol", "pantoprazole", "paracip", "para");
+
+        assertEquals(List.of("para", "paracetamol", "paracip"), index.prefixSearch("para", 10));
+        assertEquals(List.of("pantoprazole", "para", "paracetamol", "paracip"), index.prefixSearch("pa", 10));
+        assertEquals(List.of("paracetamol", "paracip"), index.prefixSearch("parac", 10));
+        assertEquals(List.of("pantoprazole"), index.prefixSearch("pan", 10));
+    }
+
+    @Test
+    void shorterNameInsertedAfterLongerSplitsTheEdge() {
+        // "para" ends inside the "paracetamol" edge, so that edge is split and the middle node named
+        MedicineTextIndex index = index("paracetamol", "para");
+
+        assertEquals(List.of("para", "paracetamol"), index.prefixSearch("p", 10));
+        assertEquals(List.of("para", "paracetamol"), index.prefixSearch("para", 10));
+        assertEquals(List.of("paracetamol"), index.prefixSearch("parace", 10));
+    }
+
+    @Test
+    void prefixEndingInsideAnEdgeOnlyMatchesThatEdge() {
+        MedicineTextIndex index = index("paracetamol", "paracip");
+
+        assertEquals(List.of("paracetamol"), index.prefixSearch("parace", 10));
+        assertEquals(List.of(), index.prefixSearch("paracex", 10));
+        assertEquals(List.of(), index.prefixSearch("paracetamolx", 10));
+        assertEquals(List.of(), index.prefixSearch("b", 10));
+    }
+
+    @Test
+    void prefixSearchStopsAtTheLimit() {
+        MedicineTextIndex index = index("amlodipine", "amoxicillin", "amikacin", "ampicillin");
+
+        assertEquals(List.of("amikacin", "amlodipine"), index.prefixSearch("am", 2));
+    }
+
+    @Test
+    void duplicateAndEmptyKeysAreIgnored() {
+        MedicineTextIndex index = new MedicineTextIndex();
+        index.add("ibuprofen", "Ibuprofen");
+        index.add("ibuprofen", "IBUPROFEN");
+        index.add("", "Blank");
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("Ibuprofen"), index.prefixSearch("ibu", 10));
+    }
+
+    @Test
+    void fuzzySearchRanksTheClosestNameFirst() {
+        MedicineTextIndex index = index("paracetamol", "pantoprazole", "ibuprofen", "amoxicillin", "ampicillin");
+
+        List<MedicineTextIndex.Match> matches = index.fuzzySearch("amoxicilin", 3, 0.2);
+
+        assertEquals("amoxicillin", matches.get(0).name());
+        assertEquals(jaccard("amoxicilin", "amoxicillin"), matches.get(0).score(), 1e-9);
+        for (int i = 1; i < matches.size(); i++) {
+            assertTrue(matches.get(i - 1).score() >= matches.get(i).score());
+        }
+        assertEquals(1.0, index.fuzzySearch("ibuprofen", 1, 0.2).get(0).score(), 1e-9);
+    }
+
+    @Test
+    void fuzzySearchDropsMatchesBelowTheMinimumScore() {
+        MedicineTextIndex index = index("paracetamol", "ibuprofen");
+
+        assertEquals(List.of(), index.fuzzySearch("zzzzzz", 5, 0.3));
+        assertEquals(List.of("paracetamol"), index.fuzzySearch("paracetmol", 5, 0.3).stream()
+                .map(MedicineTextIndex.Match::name).toList());
+    }
+
+    @Test
+    void scoresStayExactWhenCommonGramsExceedTheBudget() {
+        // 40k names share the leading "med" grams, more postings than one query may count,
+        // so those lists are only checked for the shortlist
+        MedicineTextIndex index = new MedicineTextIndex();
+        for (int i = 0; i < 40_000; i++) {
+            index.add(String.format("med%05d", i), String.format("med%05d", i));
+        }
+        index.add("medxylophone", "medxylophone");
+
+        List<MedicineTextIndex.Match> matches = index.fuzzySearch("medxylophon", 3, 0.1);
+
+        assertEquals("medxylophone", matches.get(0).name());
+        assertEquals(jaccard("medxylophon", "medxylophone"), matches.get(0).score(), 1e-9);
+    }
+}
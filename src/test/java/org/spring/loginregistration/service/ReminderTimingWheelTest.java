@@ -0,0 +1,131 @@
+package org.spring.loginregistration.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReminderTimingWheelTest {
+
+    private static final long DAY = ReminderTimingWheel.MINUTES_PER_DAY;
+    private static final long DAY_ONE = 20_000 * DAY; // an arbitrary midnight, as an absolute minute
+
+    private static ReminderTimingWheel.Entry entry(long userId, int hour, int minute) {
+        return new ReminderTimingWheel.Entry(userId, hour * 60 + minute, "dose " + userId);
+    }
+
+    private static List<Long> users(List<ReminderTimingWheel.Entry> due) {
+        List<Long> users = new ArrayList<>();
+        due.forEach(e -> users.add(e.userId));
+        return users;
+    }
+
+    // Ticks one minute at a time, as the scheduler does, and records when each user fired
+    private static List<long[]> tickThrough(ReminderTimingWheel wheel, long from, long to) {
+        List<long[]> fired = new ArrayList<>();
+        for (long minute = from; minute <= to; minute++) {
+            for (ReminderTimingWheel.Entry e : wheel.advanceTo(minute)) {
+                fired.add(new long[]{e.userId, minute});
+            }
+        }
+        return fired;
+    }
+
+    @Test
+    void firesOnItsMinuteOncePerDay() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(DAY_ONE + 8 * 60, 120);
+        wheel.add(entry(1, 9, 30));
+        wheel.add(entry(2, 8, 45)); // later in the current hour: goes straight to the minute wheel
+
+        List<long[]> fired = tickThrough(wheel, DAY_ONE + 8 * 60 + 1, DAY_ONE + DAY + 10 * 60);
+
+        assertEquals(4, fired.size());
+        assertEquals(List.of(2L, DAY_ONE + 8 * 60 + 45), List.of(fired.get(0)[0], fired.get(0)[1]));
+        assertEquals(List.of(1L, DAY_ONE + 9 * 60 + 30), List.of(fired.get(1)[0], fired.get(1)[1]));
+        assertEquals(List.of(2L, DAY_ONE + DAY + 8 * 60 + 45), List.of(fired.get(2)[0], fired.get(2)[1]));
+        assertEquals(List.of(1L, DAY_ONE + DAY + 9 * 60 + 30), List.of(fired.get(3)[0], fired.get(3)[1]));
+    }
+
+    @Test
+    void firesOnTheFirstMinuteOfAnHour() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(DAY_ONE + 9 * 60 + 59, 120);
+        wheel.add(entry(1, 10, 0));
+
+        assertEquals(List.of(1L), users(wheel.advanceTo(DAY_ONE + 10 * 60)));
+        assertTrue(wheel.advanceTo(DAY_ONE + 10 * 60 + 1).isEmpty());
+    }
+
+    @Test
+    void wrapsPastMidnight() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(DAY_ONE - 3, 120); // 23:57
+        wheel.add(entry(1, 23, 59));
+        wheel.add(entry(2, 0, 2));
+
+        List<long[]> fired = tickThrough(wheel, DAY_ONE - 2, DAY_ONE + 5);
+
+        assertEquals(2, fired.size());
+        assertEquals(DAY_ONE - 1, fired.get(0)[1]);
+        assertEquals(DAY_ONE + 2, fired.get(1)[1]);
+    }
+
+    @Test
+    void clockGoingBackFiresNothingAndDoesNotRepeat() {
+        long start = DAY_ONE + 2 * 60; // 02:00, the end of a DST fall-back hour
+        ReminderTimingWheel wheel = new ReminderTimingWheel(start - 60, 120);
+        wheel.add(entry(1, 1, 30));
+        wheel.add(entry(2, 2, 10));
+        assertEquals(List.of(1L), users(wheel.advanceTo(start)));
+
+        // The wall clock steps back to 01:00: no wrap round a whole day, and 01:30 does not fire twice
+        for (long minute = start - 60; minute <= start; minute++) {
+            assertTrue(wheel.advanceTo(minute).isEmpty(), "fired at " + minute);
+        }
+        assertEquals(List.of(2L), users(wheel.advanceTo(start + 10)));
+    }
+
+    @Test
+    void catchUpIsCapped() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(DAY_ONE, 30);
+        wheel.add(entry(1, 0, 10));
+        wheel.add(entry(2, 1, 40));
+        wheel.add(entry(3, 4, 45));
+
+        // Five hours without a tick: only 04:30-05:00 is caught up, not a burst of everything missed
+        assertEquals(List.of(3L), users(wheel.advanceTo(DAY_ONE + 5 * 60)));
+
+        // Skipped entries stay scheduled for the next day
+        List<long[]> fired = tickThrough(wheel, DAY_ONE + 5 * 60 + 1, DAY_ONE + DAY + 5 * 60);
+        assertEquals(3, fired.size());
+        assertEquals(List.of(1L, DAY_ONE + DAY + 10), List.of(fired.get(0)[0], fired.get(0)[1]));
+        assertEquals(List.of(2L, DAY_ONE + DAY + 100), List.of(fired.get(1)[0], fired.get(1)[1]));
+        assertEquals(List.of(3L, DAY_ONE + DAY + 285), List.of(fired.get(2)[0], fired.get(2)[1]));
+        assertEquals(3, wheel.size());
+    }
+
+    @Test
+    void springForwardCatchesUpTheSkippedHour() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(DAY_ONE + 2 * 60 - 1, 120); // 01:59
+        wheel.add(entry(1, 2, 30));
+        wheel.add(entry(2, 3, 5));
+
+        // 01:59 -> 03:00 in one tick: the 02:30 dose fires late rather than not at all
+        assertEquals(List.of(1L), users(wheel.advanceTo(DAY_ONE + 3 * 60)));
+        assertEquals(List.of(2L), users(wheel.advanceTo(DAY_ONE + 3 * 60 + 5)));
+    }
+
+    @Test
+    void cancelledEntriesAreDroppedWhenReached() {
+        ReminderTimingWheel wheel = new ReminderTimingWheel(DAY_ONE, 120);
+        ReminderTimingWheel.Entry cancelled = entry(1, 0, 30);
+        wheel.add(cancelled);
+        wheel.add(entry(2, 0, 30));
+        cancelled.cancelled = true;
+        assertEquals(2, wheel.size());
+
+        assertEquals(List.of(2L), users(wheel.advanceTo(DAY_ONE + 30)));
+        assertEquals(1, wheel.size());
+    }
+}